@@ -77,6 +77,7 @@ public class MultiTypeCheckGenreAdapter
         ExpandableListPosition listPosition = expandableList.getUnflattenedPosition(flatPosition);
         ((SingleCheckArtistViewHolder) holder)
             .onBindViewHolder(flatPosition, childCheckController.isChildChecked(listPosition));
+        listPosition.recycle();
         ((SingleCheckArtistViewHolder) holder).setArtistName(artist.getName());
     }
   }
@@ -95,6 +96,7 @@ public class MultiTypeCheckGenreAdapter
       childClickListener.onCheckChildCLick(view, checked,
           (CheckedExpandableGroup) expandableList.getExpandableGroup(listPos), listPos.childPos);
     }
+    listPos.recycle();
   }
 
   @Override
@@ -0,0 +1,45 @@
+package com.thoughtbot.expandablerecyclerview.benchmark;
+
+import java.util.Random;
+
+/**
+ * 基准测试中依次访问的位置序列
+ */
+public enum AccessPattern {
+
+    /**
+     * 在整个范围内随机跳转，例如快速拖动滚动条
+     */
+    RANDOM {
+        @Override
+        int[] positions(Random random, int bound, int length) {
+            int[] positions = new int[length];
+            for (int i = 0; i < length; i++) {
+                positions[i] = random.nextInt(bound);
+            }
+            return positions;
+        }
+    },
+
+    /**
+     * 从随机起点开始连续访问，例如逐行滚动
+     */
+    SEQUENTIAL {
+        @Override
+        int[] positions(Random random, int bound, int length) {
+            int[] positions = new int[length];
+            int position = random.nextInt(bound);
+            for (int i = 0; i < length; i++) {
+                positions[i] = position;
+                position = position + 1 == bound ? 0 : position + 1;
+            }
+            return positions;
+        }
+    };
+
+    /**
+     * @param bound  位置的上限（不包含）
+     * @param length 序列长度
+     */
+    abstract int[] positions(Random random, int bound, int length);
+}
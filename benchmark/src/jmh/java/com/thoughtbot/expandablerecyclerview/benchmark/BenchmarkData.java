@@ -0,0 +1,89 @@
+package com.thoughtbot.expandablerecyclerview.benchmark;
+
+import android.os.Parcel;
+import android.os.Parcelable;
+
+import com.thoughtbot.expandablecheckrecyclerview.models.MultiCheckExpandableGroup;
+import com.thoughtbot.expandablerecyclerview.models.ExpandableGroup;
+import com.thoughtbot.expandablerecyclerview.models.ExpandableList;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * 构建基准测试使用的数据集，相同的参数和种子总是得到相同的数据
+ */
+final class BenchmarkData {
+
+    static final long SEED = 0x5EED;
+
+    /**
+     * 预先生成的访问序列长度，取 2 的幂以便用掩码循环
+     */
+    static final int POSITION_COUNT = 1 << 12;
+    static final int POSITION_MASK = POSITION_COUNT - 1;
+
+    private static final Child CHILD = new Child();
+
+    private BenchmarkData() {
+    }
+
+    /**
+     * 子项列表共享同一个元素，1M 组的数据集也只占用组对象本身的内存
+     */
+    static List<ExpandableGroup> groups(int groupCount, ChildCountDistribution distribution,
+                                        Random random) {
+        List<ExpandableGroup> groups = new ArrayList<>(groupCount);
+        for (int i = 0; i < groupCount; i++) {
+            groups.add(new ExpandableGroup<>("group " + i,
+                    Collections.nCopies(distribution.nextChildCount(random), CHILD)));
+        }
+        return groups;
+    }
+
+    static List<MultiCheckExpandableGroup> checkedGroups(int groupCount,
+                                                         ChildCountDistribution distribution,
+                                                         double checkedRatio, Random random) {
+        List<MultiCheckExpandableGroup> groups = new ArrayList<>(groupCount);
+        for (int i = 0; i < groupCount; i++) {
+            MultiCheckExpandableGroup group = new MultiCheckExpandableGroup("group " + i,
+                    Collections.nCopies(distribution.nextChildCount(random), CHILD));
+            for (int j = 0; j < group.getItemCount(); j++) {
+                if (random.nextDouble() < checkedRatio) {
+                    group.checkChild(j);
+                }
+            }
+            groups.add(group);
+        }
+        return groups;
+    }
+
+    /**
+     * 随机展开一半的组
+     */
+    static ExpandableList expandHalf(ExpandableList expandableList, Random random) {
+        for (int i = 0; i < expandableList.groups.size(); i++) {
+            if (random.nextBoolean()) {
+                expandableList.setGroupExpanded(i, true);
+            }
+        }
+        return expandableList;
+    }
+
+    /**
+     * 所有组共享的子项，基准测试不会序列化它
+     */
+    private static final class Child implements Parcelable {
+
+        @Override
+        public int describeContents() {
+            return 0;
+        }
+
+        @Override
+        public void writeToParcel(Parcel dest, int flags) {
+        }
+    }
+}
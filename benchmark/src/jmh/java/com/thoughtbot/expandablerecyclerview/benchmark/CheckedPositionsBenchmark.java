@@ -0,0 +1,53 @@
+package com.thoughtbot.expandablerecyclerview.benchmark;
+
+import com.thoughtbot.expandablecheckrecyclerview.ChildCheckController;
+import com.thoughtbot.expandablerecyclerview.models.ExpandableList;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@link ChildCheckController#getCheckedPositions()}，开销取决于组数和选中的子项数
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class CheckedPositionsBenchmark {
+
+    @Param({"100", "10000", "1000000"})
+    int groupCount;
+
+    @Param({"UNIFORM", "SKEWED"})
+    ChildCountDistribution distribution;
+
+    /**
+     * 每个子项被选中的概率
+     */
+    @Param({"0.001", "0.1"})
+    double checkedRatio;
+
+    private ChildCheckController childCheckController;
+
+    @Setup
+    public void setUp() {
+        Random random = new Random(BenchmarkData.SEED);
+        ExpandableList expandableList = BenchmarkData.expandHalf(new ExpandableList(
+                BenchmarkData.checkedGroups(groupCount, distribution, checkedRatio, random)), random);
+        childCheckController = new ChildCheckController(expandableList, null);
+    }
+
+    @Benchmark
+    public List<Integer> getCheckedPositions() {
+        return childCheckController.getCheckedPositions();
+    }
+}
@@ -0,0 +1,34 @@
+package com.thoughtbot.expandablerecyclerview.benchmark;
+
+import java.util.Random;
+
+/**
+ * 每个组的子项数量分布
+ */
+public enum ChildCountDistribution {
+
+    /**
+     * 0 到 10 之间均匀分布
+     */
+    UNIFORM {
+        @Override
+        int nextChildCount(Random random) {
+            return random.nextInt(11);
+        }
+    },
+
+    /**
+     * 幂律分布（alpha = 1.2）：大部分组只有几个子项，少数组有上千个，平均约 5 个
+     */
+    SKEWED {
+        @Override
+        int nextChildCount(Random random) {
+            double u = 1.0 - random.nextDouble();
+            return (int) Math.min(MAX_SKEWED_CHILD_COUNT, Math.floor(Math.pow(u, -1.0 / 1.2))) - 1;
+        }
+    };
+
+    private static final int MAX_SKEWED_CHILD_COUNT = 10000;
+
+    abstract int nextChildCount(Random random);
+}
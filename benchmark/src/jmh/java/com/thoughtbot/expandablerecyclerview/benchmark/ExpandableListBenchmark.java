@@ -0,0 +1,88 @@
+package com.thoughtbot.expandablerecyclerview.benchmark;
+
+import com.thoughtbot.expandablerecyclerview.models.ExpandableList;
+import com.thoughtbot.expandablerecyclerview.models.ExpandableListPosition;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@link ExpandableList} 中只读的位置换算，一半的组处于展开状态
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class ExpandableListBenchmark {
+
+    @Param({"100", "10000", "1000000"})
+    int groupCount;
+
+    @Param({"UNIFORM", "SKEWED"})
+    ChildCountDistribution distribution;
+
+    @Param({"RANDOM", "SEQUENTIAL"})
+    AccessPattern access;
+
+    private ExpandableList expandableList;
+    private int[] flatPositions;
+    private long[] childPositions;
+    private int next;
+
+    @Setup
+    public void setUp() {
+        Random random = new Random(BenchmarkData.SEED);
+        expandableList = BenchmarkData.expandHalf(
+                new ExpandableList(BenchmarkData.groups(groupCount, distribution, random)), random);
+        flatPositions = access.positions(random, expandableList.getVisibleItemCount(),
+                BenchmarkData.POSITION_COUNT);
+
+        // 按同样的访问顺序收集子项的打包位置，不足时循环填充
+        childPositions = new long[BenchmarkData.POSITION_COUNT];
+        int childCount = 0;
+        for (int flatPosition : flatPositions) {
+            long packedPosition = expandableList.getUnflattenedPackedPosition(flatPosition);
+            if (ExpandableListPosition.getPackedPositionType(packedPosition) == ExpandableListPosition.CHILD) {
+                childPositions[childCount++] = packedPosition;
+            }
+        }
+        if (childCount == 0) {
+            childPositions[childCount++] = ExpandableListPosition.packChildPosition(0, 0);
+        }
+        for (int i = childCount; i < childPositions.length; i++) {
+            childPositions[i] = childPositions[i - childCount];
+        }
+    }
+
+    @Benchmark
+    public int getUnflattenedPosition() {
+        ExpandableListPosition listPosition =
+                expandableList.getUnflattenedPosition(flatPositions[next++ & BenchmarkData.POSITION_MASK]);
+        int groupPos = listPosition.groupPos;
+        listPosition.recycle();
+        return groupPos;
+    }
+
+    @Benchmark
+    public long getUnflattenedPackedPosition() {
+        return expandableList.getUnflattenedPackedPosition(flatPositions[next++ & BenchmarkData.POSITION_MASK]);
+    }
+
+    @Benchmark
+    public int getFlattenedChildIndex() {
+        return expandableList.getFlattenedChildIndex(childPositions[next++ & BenchmarkData.POSITION_MASK]);
+    }
+
+    @Benchmark
+    public int getVisibleItemCount() {
+        return expandableList.getVisibleItemCount();
+    }
+}
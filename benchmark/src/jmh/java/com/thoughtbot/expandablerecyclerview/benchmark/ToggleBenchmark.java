@@ -0,0 +1,65 @@
+package com.thoughtbot.expandablerecyclerview.benchmark;
+
+import com.thoughtbot.expandablerecyclerview.ExpandCollapseController;
+import com.thoughtbot.expandablerecyclerview.models.ExpandableGroup;
+import com.thoughtbot.expandablerecyclerview.models.ExpandableList;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 展开/折叠单个组，以及切换后重新读取可见行数（会触发前缀和索引的更新）
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class ToggleBenchmark {
+
+    @Param({"100", "10000", "1000000"})
+    int groupCount;
+
+    @Param({"UNIFORM", "SKEWED"})
+    ChildCountDistribution distribution;
+
+    @Param({"RANDOM", "SEQUENTIAL"})
+    AccessPattern access;
+
+    private ExpandableList expandableList;
+    private ExpandCollapseController controller;
+    private ExpandableGroup[] toggledGroups;
+    private int next;
+
+    @Setup
+    public void setUp() {
+        Random random = new Random(BenchmarkData.SEED);
+        List<ExpandableGroup> groups = BenchmarkData.groups(groupCount, distribution, random);
+        expandableList = BenchmarkData.expandHalf(new ExpandableList(groups), random);
+        controller = new ExpandCollapseController(expandableList, null);
+        int[] groupIndexes = access.positions(random, groupCount, BenchmarkData.POSITION_COUNT);
+        toggledGroups = new ExpandableGroup[groupIndexes.length];
+        for (int i = 0; i < groupIndexes.length; i++) {
+            toggledGroups[i] = groups.get(groupIndexes[i]);
+        }
+    }
+
+    @Benchmark
+    public boolean toggle() {
+        return controller.toggleGroup(toggledGroups[next++ & BenchmarkData.POSITION_MASK]);
+    }
+
+    @Benchmark
+    public int toggleAndGetVisibleItemCount() {
+        controller.toggleGroup(toggledGroups[next++ & BenchmarkData.POSITION_MASK]);
+        return expandableList.getVisibleItemCount();
+    }
+}
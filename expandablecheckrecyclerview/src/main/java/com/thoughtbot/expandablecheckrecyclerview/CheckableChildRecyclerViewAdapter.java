@@ -2,27 +2,38 @@ package com.thoughtbot.expandablecheckrecyclerview;
 
 import android.app.Activity;
 import android.os.Bundle;
+import android.os.Parcelable;
 import android.view.View;
 import android.view.ViewGroup;
 
 import com.thoughtbot.expandablecheckrecyclerview.listeners.OnCheckChildClickListener;
 import com.thoughtbot.expandablecheckrecyclerview.listeners.OnChildCheckChangedListener;
 import com.thoughtbot.expandablecheckrecyclerview.listeners.OnChildrenCheckStateChangedListener;
+import com.thoughtbot.expandablecheckrecyclerview.models.CheckStatePayload;
 import com.thoughtbot.expandablecheckrecyclerview.models.CheckedExpandableGroup;
 import com.thoughtbot.expandablecheckrecyclerview.viewholders.CheckableChildViewHolder;
 import com.thoughtbot.expandablerecyclerview.ExpandableRecyclerViewAdapter;
 import com.thoughtbot.expandablerecyclerview.models.ExpandableGroup;
 import com.thoughtbot.expandablerecyclerview.models.ExpandableListPosition;
+import com.thoughtbot.expandablerecyclerview.models.PackedBitSet;
+import com.thoughtbot.expandablerecyclerview.models.StableIdProvider;
 import com.thoughtbot.expandablerecyclerview.viewholders.GroupViewHolder;
 
-import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 
 public abstract class CheckableChildRecyclerViewAdapter<GVH extends GroupViewHolder, CCVH extends CheckableChildViewHolder>
         extends ExpandableRecyclerViewAdapter<GVH, CCVH>
         implements OnChildCheckChangedListener, OnChildrenCheckStateChangedListener {
 
     private static final String CHECKED_STATE_MAP = "child_check_controller_checked_state_map";
+    private static final String SAVED_GROUP_KEYS = "checkable_adapter_saved_group_keys";
+    private static final String SAVED_CHILD_COUNTS = "checkable_adapter_saved_child_counts";
+    private static final String SAVED_WORD_OFFSETS = "checkable_adapter_saved_word_offsets";
+    private static final String SAVED_SELECTION_WORDS = "checkable_adapter_saved_selection_words";
+    private static final String SAVED_EXPANDED_WORDS = "checkable_adapter_saved_expanded_words";
 
     private ChildCheckController childCheckController;
     private OnCheckChildClickListener childClickListener;
@@ -42,24 +53,42 @@ public abstract class CheckableChildRecyclerViewAdapter<GVH extends GroupViewHol
     @Override
     public void onBindChildViewHolder(CCVH holder, int flatPosition, ExpandableGroup group,
                                       int childIndex) {
-        ExpandableListPosition listPosition = expandableList.getUnflattenedPosition(flatPosition);
-        holder.onBindViewHolder(flatPosition, childCheckController.isChildChecked(listPosition));
+        int groupIndex = ExpandableListPosition.getPackedPositionGroup(
+                getPackedPosition(flatPosition));
+        holder.onBindViewHolder(flatPosition, childCheckController.isChildChecked(groupIndex, childIndex));
         onBindCheckChildViewHolder(holder, flatPosition, (CheckedExpandableGroup) group, childIndex);
     }
 
+    /**
+     * 只有选中状态变化（payload 为 {@link CheckStatePayload}）时只更新 Checkable，不调用
+     * {@link #onBindCheckChildViewHolder(CheckableChildViewHolder, int, CheckedExpandableGroup, int)}
+     */
+    @Override
+    public void onBindChildViewHolder(CCVH holder, int flatPosition, ExpandableGroup group,
+                                      int childIndex, List<Object> payloads) {
+        int groupIndex = ExpandableListPosition.getPackedPositionGroup(
+                getPackedPosition(flatPosition));
+        boolean checked = childCheckController.isChildChecked(groupIndex, childIndex);
+        if (!holder.onBindViewHolder(flatPosition, checked, payloads)) {
+            onBindCheckChildViewHolder(holder, flatPosition, (CheckedExpandableGroup) group, childIndex);
+        }
+    }
+
     @Override
     public void onChildCheckChanged(View view, boolean checked, int flatPos) {
-        ExpandableListPosition listPos = expandableList.getUnflattenedPosition(flatPos);
-        childCheckController.onChildCheckChanged(checked, listPos);
+        long packedPos = getPackedPosition(flatPos);
+        int groupIndex = ExpandableListPosition.getPackedPositionGroup(packedPos);
+        int childIndex = ExpandableListPosition.getPackedPositionChild(packedPos);
+        childCheckController.onChildCheckChanged(checked, groupIndex, childIndex);
         if (childClickListener != null) {
             childClickListener.onCheckChildCLick(view, checked,
-                    (CheckedExpandableGroup) expandableList.getExpandableGroup(listPos), listPos.childPos);
+                    (CheckedExpandableGroup) expandableList.groups.get(groupIndex), childIndex);
         }
     }
 
     @Override
     public void updateChildrenCheckState(int firstChildFlattenedIndex, int numChildren) {
-        notifyItemRangeChanged(firstChildFlattenedIndex, numChildren);
+        dispatchItemRangeChanged(firstChildFlattenedIndex, numChildren, CheckStatePayload.INSTANCE);
     }
 
     public void setChildClickListener(OnCheckChildClickListener listener) {
@@ -72,13 +101,52 @@ public abstract class CheckableChildRecyclerViewAdapter<GVH extends GroupViewHol
      * 应该从承载 {@link CheckableChildRecyclerViewAdapter} 附加到的 RecyclerView 的任何 {@link Activity} 调用。
      * <p>
      * 这将确保将选中的状态映射作为额外添加到要在 {@link #onRestoreInstanceState(Bundle)} 中使用的实例状态包中。
+     * 只保存有选中子项或已展开的组：组的键（见 {@link #getSavedStateKey(ExpandableGroup, int)}）、按位打包的选中状态和展开状态，
+     * 不再序列化组标题和子项。父类按组索引保存的展开状态仍然写入，依赖这些键的子类不受影响；
+     * 恢复时优先使用按组的键保存的展开状态。
      *
      * @param outState {@code Bundle} 用于存储已检查的状态映射
      */
     @Override
     public void onSaveInstanceState(Bundle outState) {
-        outState.putParcelableArrayList(CHECKED_STATE_MAP, new ArrayList(expandableList.groups));
         super.onSaveInstanceState(outState);
+        List<? extends ExpandableGroup> groups = expandableList.groups;
+        int groupCount = groups.size();
+        String[] keys = new String[groupCount];
+        int[] childCounts = new int[groupCount];
+        long[][] groupWords = new long[groupCount][];
+        PackedBitSet expanded = new PackedBitSet(groupCount);
+        int savedCount = 0;
+        int wordCount = 0;
+        for (int i = 0; i < groupCount; i++) {
+            CheckedExpandableGroup group = (CheckedExpandableGroup) groups.get(i);
+            long[] words = group.getSelection().toWords();
+            boolean isExpanded = expandableList.isGroupExpanded(i);
+            if (words.length == 0 && !isExpanded) {
+                continue;
+            }
+            keys[savedCount] = getSavedStateKey(group, i);
+            childCounts[savedCount] = group.getItemCount();
+            groupWords[savedCount] = words;
+            expanded.set(savedCount, isExpanded);
+            wordCount += words.length;
+            savedCount++;
+        }
+
+        int[] wordOffsets = new int[savedCount + 1];
+        long[] selectionWords = new long[wordCount];
+        for (int i = 0; i < savedCount; i++) {
+            long[] words = groupWords[i];
+            System.arraycopy(words, 0, selectionWords, wordOffsets[i], words.length);
+            wordOffsets[i + 1] = wordOffsets[i] + words.length;
+        }
+        expanded.resize(savedCount);
+
+        outState.putStringArray(SAVED_GROUP_KEYS, Arrays.copyOf(keys, savedCount));
+        outState.putIntArray(SAVED_CHILD_COUNTS, Arrays.copyOf(childCounts, savedCount));
+        outState.putIntArray(SAVED_WORD_OFFSETS, wordOffsets);
+        outState.putLongArray(SAVED_SELECTION_WORDS, selectionWords);
+        outState.putLongArray(SAVED_EXPANDED_WORDS, expanded.toWords());
     }
 
     /**
@@ -87,18 +155,75 @@ public abstract class CheckableChildRecyclerViewAdapter<GVH extends GroupViewHol
      * 应从 {@link Activity} 中的 {@link Activity#onRestoreInstanceState(Bundle)} 调用，
      * 该 {@link Activity} 承载此 {@link CheckableChildRecyclerViewAdapter} 附加到的 RecyclerView。
      * <p>
+     * 按组的键把选中状态和展开状态合并回当前的组，当前的组对象保持不变；保存时不存在的组被清除选中并折叠。
+     * 仍然可以读取旧版本整体保存组列表的格式。
      *
      * @param savedInstanceState 从中加载扩展状态映射的 {@code Bundle}
      */
     @Override
     public void onRestoreInstanceState(Bundle savedInstanceState) {
-        if (savedInstanceState == null || !savedInstanceState.containsKey(CHECKED_STATE_MAP)) {
+        if (savedInstanceState == null) {
+            return;
+        }
+        if (savedInstanceState.containsKey(SAVED_GROUP_KEYS)) {
+            restoreSelectionState(savedInstanceState);
+            dispatchDataSetChanged();
+            return;
+        }
+        if (!savedInstanceState.containsKey(CHECKED_STATE_MAP)) {
             return;
         }
         expandableList.groups = savedInstanceState.getParcelableArrayList(CHECKED_STATE_MAP);
         super.onRestoreInstanceState(savedInstanceState);
     }
 
+    private void restoreSelectionState(Bundle savedInstanceState) {
+        String[] keys = savedInstanceState.getStringArray(SAVED_GROUP_KEYS);
+        int[] childCounts = savedInstanceState.getIntArray(SAVED_CHILD_COUNTS);
+        int[] wordOffsets = savedInstanceState.getIntArray(SAVED_WORD_OFFSETS);
+        long[] selectionWords = savedInstanceState.getLongArray(SAVED_SELECTION_WORDS);
+        PackedBitSet savedExpanded = PackedBitSet.fromWords(
+                savedInstanceState.getLongArray(SAVED_EXPANDED_WORDS), keys.length);
+
+        Map<String, Integer> savedIndexes = new HashMap<>(keys.length * 2);
+        for (int i = 0; i < keys.length; i++) {
+            savedIndexes.put(keys[i], i);
+        }
+
+        List<? extends ExpandableGroup> groups = expandableList.groups;
+        PackedBitSet expanded = new PackedBitSet(groups.size());
+        for (int i = 0; i < groups.size(); i++) {
+            CheckedExpandableGroup group = (CheckedExpandableGroup) groups.get(i);
+            Integer savedIndex = savedIndexes.get(getSavedStateKey(group, i));
+            if (savedIndex == null) {
+                group.clearSelections();
+            } else {
+                long[] words = Arrays.copyOfRange(selectionWords,
+                        wordOffsets[savedIndex], wordOffsets[savedIndex + 1]);
+                group.setSelection(PackedBitSet.fromWords(words, childCounts[savedIndex]));
+                expanded.set(i, savedExpanded.get(savedIndex));
+            }
+            childCheckController.notifyGroupCheckStateChanged(i);
+        }
+        expandableList.setExpandState(expanded);
+    }
+
+    /**
+     * 保存和恢复状态时用来匹配组的键，在整个列表中应当唯一，并且在进程重建后保持不变。
+     * 默认：设置了 {@link StableIdProvider} 时为组 id，否则退回组的索引。按索引匹配时，保存之后插入或删除的组
+     * 会使选中状态落到错误的组上，组可能增删时应设置 {@link StableIdProvider} 或覆盖本方法
+     *
+     * @param group      要保存或恢复状态的组
+     * @param groupIndex 组在 {@code getGroups()} 中的索引
+     * @return 组的键
+     */
+    protected String getSavedStateKey(ExpandableGroup group, int groupIndex) {
+        StableIdProvider stableIdProvider = getStableIdProvider();
+        return stableIdProvider != null
+                ? "id:" + stableIdProvider.getGroupId(group)
+                : "index:" + groupIndex;
+    }
+
     /**
      * 手动（以编程方式）更新子项的检查状态
      *
@@ -114,6 +239,51 @@ public abstract class CheckableChildRecyclerViewAdapter<GVH extends GroupViewHol
         }
     }
 
+    /**
+     * 选中状态与初始状态随组和子项一起平移，见 {@link ChildCheckController#notifyGroupInserted(int)} 等
+     */
+    @Override
+    public void addGroup(int groupIndex, ExpandableGroup group) {
+        super.addGroup(groupIndex, group);
+        childCheckController.notifyGroupInserted(groupIndex);
+    }
+
+    @Override
+    public ExpandableGroup removeGroup(int groupIndex) {
+        ExpandableGroup group = super.removeGroup(groupIndex);
+        childCheckController.notifyGroupRemoved(groupIndex);
+        return group;
+    }
+
+    @Override
+    public void moveGroup(int fromGroupIndex, int toGroupIndex) {
+        super.moveGroup(fromGroupIndex, toGroupIndex);
+        if (fromGroupIndex != toGroupIndex) {
+            childCheckController.notifyGroupMoved(fromGroupIndex, toGroupIndex);
+        }
+    }
+
+    @Override
+    public void addChild(int groupIndex, int childIndex, Parcelable child) {
+        super.addChild(groupIndex, childIndex, child);
+        childCheckController.notifyChildInserted(groupIndex, childIndex);
+    }
+
+    @Override
+    public Parcelable removeChild(int groupIndex, int childIndex) {
+        Parcelable child = super.removeChild(groupIndex, childIndex);
+        childCheckController.notifyChildRemoved(groupIndex, childIndex);
+        return child;
+    }
+
+    @Override
+    public void moveChild(int groupIndex, int fromChildIndex, int toChildIndex) {
+        super.moveChild(groupIndex, fromChildIndex, toChildIndex);
+        if (fromChildIndex != toChildIndex) {
+            childCheckController.notifyChildMoved(groupIndex, fromChildIndex, toChildIndex);
+        }
+    }
+
     /**
      * 清除之前选中的所有选项
      */
@@ -123,12 +293,27 @@ public abstract class CheckableChildRecyclerViewAdapter<GVH extends GroupViewHol
         //only update the child views that are visible (i.e. their group is expanded)
         for (int i = 0; i < getGroups().size(); i++) {
             ExpandableGroup group = getGroups().get(i);
-            if (isGroupExpanded(group)) {
-                notifyItemRangeChanged(expandableList.getFlattenedFirstChildIndex(i), group.getItemCount());
+            if (expandableList.isGroupExpanded(i)) {
+                dispatchItemRangeChanged(expandableList.getFlattenedFirstChildIndex(i), group.getItemCount(),
+                        CheckStatePayload.INSTANCE);
             }
         }
     }
 
+    /**
+     * @return true 如果任何子项的选中状态自适配器创建以来已更改，O(1)
+     */
+    public boolean checksChanged() {
+        return childCheckController.checksChanged();
+    }
+
+    /**
+     * @return 所有组中选中的子项总数，O(1)
+     */
+    public int getCheckedChildCount() {
+        return childCheckController.getCheckedChildCount();
+    }
+
     /**
      * 当创建的列表项是子项时从 #onCreateViewHolder(ViewGroup, int) 调用
      *
@@ -1,103 +1,450 @@
 package com.thoughtbot.expandablecheckrecyclerview;
 
 import android.widget.Checkable;
-import android.widget.ExpandableListView;
 
 import com.thoughtbot.expandablecheckrecyclerview.listeners.OnChildrenCheckStateChangedListener;
 import com.thoughtbot.expandablecheckrecyclerview.models.CheckedExpandableGroup;
-import com.thoughtbot.expandablecheckrecyclerview.viewholders.CheckableChildViewHolder;
+import com.thoughtbot.expandablecheckrecyclerview.models.MultiCheckExpandableGroup;
+import com.thoughtbot.expandablecheckrecyclerview.models.SingleCheckExpandableGroup;
+import com.thoughtbot.expandablerecyclerview.models.ExpandableGroup;
 import com.thoughtbot.expandablerecyclerview.models.ExpandableList;
 import com.thoughtbot.expandablerecyclerview.models.ExpandableListPosition;
+import com.thoughtbot.expandablerecyclerview.models.PackedBitSet;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
 
+/**
+ * 管理子项的选中状态。
+ * <p>
+ * 初始化时按组保存一份选中状态的快照，之后每次经由本类修改某个组时，只重新比较这一个组（O(组内子项数/64)），
+ * 并增量维护与快照不同的子项总数和选中子项总数，所以 {@link #checksChanged()} 与 {@link #getCheckedChildCount()} 为 O(1)。
+ * 绕过本类直接修改 {@link CheckedExpandableGroup} 之后需要调用 {@link #notifyGroupCheckStateChanged(int)}。
+ */
 public class ChildCheckController {
 
     private ExpandableList expandableList;
     private OnChildrenCheckStateChangedListener childrenUpdateListener;
-    private List<Integer> initialCheckedPositions;
+
+    /**
+     * 初始化时每个组的选中状态，不是 {@link CheckedExpandableGroup} 的组为 null
+     */
+    private PackedBitSet[] initialSelections;
+    /**
+     * 与 {@link #groupChangedCounts} 等数组对应的组列表，列表被替换后需要重新对齐
+     */
+    private List<? extends ExpandableGroup> trackedGroups;
+    private int trackedGroupCount;
+    private int[] groupChangedCounts;
+    private int[] groupCheckedCounts;
+    private int changedChildCount;
+    private int checkedChildCount;
+    private int checkVersion;
 
     public ChildCheckController(ExpandableList expandableList,
                                 OnChildrenCheckStateChangedListener listener) {
         this.expandableList = expandableList;
         this.childrenUpdateListener = listener;
-        initialCheckedPositions = getCheckedPositions();
+        List<? extends ExpandableGroup> groups = expandableList.groups;
+        initialSelections = new PackedBitSet[groups.size()];
+        for (int i = 0; i < initialSelections.length; i++) {
+            CheckedExpandableGroup group = getCheckedGroup(groups, i);
+            if (group != null) {
+                initialSelections[i] = group.getSelection().copy();
+            }
+        }
+        retrack();
+    }
+
+    private static CheckedExpandableGroup getCheckedGroup(List<? extends ExpandableGroup> groups,
+                                                          int groupIndex) {
+        ExpandableGroup group = groups.get(groupIndex);
+        return group instanceof CheckedExpandableGroup ? (CheckedExpandableGroup) group : null;
+    }
+
+    /**
+     * 组列表被整体替换（例如恢复状态或 setGroups）后，按索引与初始快照重新对齐，O(n/64)
+     */
+    private void ensureTracked() {
+        if (trackedGroups != expandableList.groups || trackedGroupCount != expandableList.groups.size()) {
+            retrack();
+        }
+    }
+
+    private void retrack() {
+        trackedGroups = expandableList.groups;
+        trackedGroupCount = trackedGroups.size();
+        groupChangedCounts = new int[trackedGroupCount];
+        groupCheckedCounts = new int[trackedGroupCount];
+        changedChildCount = 0;
+        checkedChildCount = 0;
+        for (int i = 0; i < trackedGroupCount; i++) {
+            updateGroup(i);
+        }
+        // 已经不存在的组，初始选中的子项都算作变化
+        for (int i = trackedGroupCount; i < initialSelections.length; i++) {
+            if (initialSelections[i] != null) {
+                changedChildCount += initialSelections[i].cardinality();
+            }
+        }
+        checkVersion++;
+    }
+
+    private void updateGroup(int groupIndex) {
+        CheckedExpandableGroup group = getCheckedGroup(trackedGroups, groupIndex);
+        PackedBitSet initial = groupIndex < initialSelections.length ? initialSelections[groupIndex] : null;
+        int changed;
+        int checked;
+        if (group != null) {
+            PackedBitSet selection = group.getSelection();
+            changed = selection.differenceCount(initial);
+            checked = selection.cardinality();
+        } else {
+            changed = initial == null ? 0 : initial.cardinality();
+            checked = 0;
+        }
+        changedChildCount += changed - groupChangedCounts[groupIndex];
+        checkedChildCount += checked - groupCheckedCounts[groupIndex];
+        groupChangedCounts[groupIndex] = changed;
+        groupCheckedCounts[groupIndex] = checked;
+    }
+
+    /**
+     * 绕过本类直接修改了某个组的选中状态之后调用，只重新比较这一个组
+     *
+     * @param groupIndex 组在 {@link ExpandableList#groups} 中的索引
+     */
+    public void notifyGroupCheckStateChanged(int groupIndex) {
+        ensureTracked();
+        updateGroup(groupIndex);
+        checkVersion++;
+    }
+
+    /**
+     * 在 {@link ExpandableList#groups} 中插入了组之后调用。新组当前的选中状态作为它的初始状态，
+     * 之后各组的统计随之平移，O(n)
+     *
+     * @param groupIndex 新组的索引
+     */
+    public void notifyGroupInserted(int groupIndex) {
+        CheckedExpandableGroup group = getCheckedGroup(expandableList.groups, groupIndex);
+        PackedBitSet[] selections = new PackedBitSet[Math.max(initialSelections.length, groupIndex) + 1];
+        System.arraycopy(initialSelections, 0, selections, 0, Math.min(groupIndex, initialSelections.length));
+        if (groupIndex < initialSelections.length) {
+            System.arraycopy(initialSelections, groupIndex, selections, groupIndex + 1,
+                    initialSelections.length - groupIndex);
+        }
+        selections[groupIndex] = group == null ? null : group.getSelection().copy();
+        initialSelections = selections;
+        if (trackedGroupCount != expandableList.groups.size() - 1) {
+            retrack();
+            return;
+        }
+        groupChangedCounts = insertCount(groupChangedCounts, groupIndex);
+        groupCheckedCounts = insertCount(groupCheckedCounts, groupIndex);
+        trackedGroups = expandableList.groups;
+        trackedGroupCount++;
+        updateGroup(groupIndex);
+        checkVersion++;
+    }
+
+    /**
+     * 从 {@link ExpandableList#groups} 中删除了组之后调用。该组的选中子项和初始状态一并移除，O(n)
+     *
+     * @param groupIndex 被删除的组原来的索引
+     */
+    public void notifyGroupRemoved(int groupIndex) {
+        // 已经不存在的组的初始状态会平移到最后一个组上，需要整体重新比较
+        boolean hasRemovedGroups = initialSelections.length > trackedGroupCount;
+        if (groupIndex < initialSelections.length) {
+            PackedBitSet[] selections = new PackedBitSet[initialSelections.length - 1];
+            System.arraycopy(initialSelections, 0, selections, 0, groupIndex);
+            System.arraycopy(initialSelections, groupIndex + 1, selections, groupIndex,
+                    selections.length - groupIndex);
+            initialSelections = selections;
+        }
+        if (hasRemovedGroups || trackedGroupCount != expandableList.groups.size() + 1) {
+            retrack();
+            return;
+        }
+        changedChildCount -= groupChangedCounts[groupIndex];
+        checkedChildCount -= groupCheckedCounts[groupIndex];
+        System.arraycopy(groupChangedCounts, groupIndex + 1, groupChangedCounts, groupIndex,
+                trackedGroupCount - groupIndex - 1);
+        System.arraycopy(groupCheckedCounts, groupIndex + 1, groupCheckedCounts, groupIndex,
+                trackedGroupCount - groupIndex - 1);
+        trackedGroups = expandableList.groups;
+        trackedGroupCount--;
+        checkVersion++;
+    }
+
+    /**
+     * 在 {@link ExpandableList#groups} 中移动了组之后调用，初始状态和统计随组一起移动，O(n)
+     *
+     * @param fromGroupIndex 组原来的索引
+     * @param toGroupIndex   组移动后的索引
+     */
+    public void notifyGroupMoved(int fromGroupIndex, int toGroupIndex) {
+        int length = Math.max(fromGroupIndex, toGroupIndex) + 1;
+        if (initialSelections.length < length) {
+            initialSelections = Arrays.copyOf(initialSelections, length);
+        }
+        moveElement(initialSelections, fromGroupIndex, toGroupIndex);
+        if (trackedGroupCount != expandableList.groups.size()) {
+            retrack();
+            return;
+        }
+        moveCount(groupChangedCounts, fromGroupIndex, toGroupIndex);
+        moveCount(groupCheckedCounts, fromGroupIndex, toGroupIndex);
+        trackedGroups = expandableList.groups;
+        checkVersion++;
     }
 
     /**
-     * 由 {@link CheckableChildViewHolder} 上的点击事件触发，导致 {@link Checkable} 对象更改选中状态
+     * 在组内插入了子项之后调用，新子项初始为未选中，只重新比较这一个组
+     *
+     * @param groupIndex 组在 {@link ExpandableList#groups} 中的索引
+     * @param childIndex 新子项在组内的索引
+     */
+    public void notifyChildInserted(int groupIndex, int childIndex) {
+        PackedBitSet initial = groupIndex < initialSelections.length ? initialSelections[groupIndex] : null;
+        if (initial != null) {
+            if (childIndex > initial.size()) {
+                initial.resize(childIndex);
+            }
+            initial.insert(childIndex, false);
+        }
+        notifyGroupCheckStateChanged(groupIndex);
+    }
+
+    /**
+     * 在组内删除了子项之后调用，该子项的初始状态一并移除，只重新比较这一个组
+     *
+     * @param groupIndex 组在 {@link ExpandableList#groups} 中的索引
+     * @param childIndex 被删除的子项原来的索引
+     */
+    public void notifyChildRemoved(int groupIndex, int childIndex) {
+        PackedBitSet initial = groupIndex < initialSelections.length ? initialSelections[groupIndex] : null;
+        if (initial != null && childIndex < initial.size()) {
+            initial.remove(childIndex);
+        }
+        notifyGroupCheckStateChanged(groupIndex);
+    }
+
+    /**
+     * 在组内移动了子项之后调用，初始状态随子项一起移动，只重新比较这一个组
+     *
+     * @param groupIndex     组在 {@link ExpandableList#groups} 中的索引
+     * @param fromChildIndex 子项原来的索引
+     * @param toChildIndex   子项移动后的索引
+     */
+    public void notifyChildMoved(int groupIndex, int fromChildIndex, int toChildIndex) {
+        PackedBitSet initial = groupIndex < initialSelections.length ? initialSelections[groupIndex] : null;
+        if (initial != null) {
+            int size = Math.max(fromChildIndex, toChildIndex) + 1;
+            if (initial.size() < size) {
+                initial.resize(size);
+            }
+            initial.move(fromChildIndex, toChildIndex);
+        }
+        notifyGroupCheckStateChanged(groupIndex);
+    }
+
+    private static int[] insertCount(int[] counts, int index) {
+        int[] shifted = new int[counts.length + 1];
+        System.arraycopy(counts, 0, shifted, 0, index);
+        System.arraycopy(counts, index, shifted, index + 1, counts.length - index);
+        return shifted;
+    }
+
+    private static void moveCount(int[] counts, int fromIndex, int toIndex) {
+        int moved = counts[fromIndex];
+        if (toIndex > fromIndex) {
+            System.arraycopy(counts, fromIndex + 1, counts, fromIndex, toIndex - fromIndex);
+        } else {
+            System.arraycopy(counts, toIndex, counts, toIndex + 1, fromIndex - toIndex);
+        }
+        counts[toIndex] = moved;
+    }
+
+    private static void moveElement(Object[] elements, int fromIndex, int toIndex) {
+        Object moved = elements[fromIndex];
+        if (toIndex > fromIndex) {
+            System.arraycopy(elements, fromIndex + 1, elements, fromIndex, toIndex - fromIndex);
+        } else {
+            System.arraycopy(elements, toIndex, elements, toIndex + 1, fromIndex - toIndex);
+        }
+        elements[toIndex] = moved;
+    }
+
+    /**
+     * 由 {@link com.thoughtbot.expandablecheckrecyclerview.viewholders.CheckableChildViewHolder} 上的点击事件触发，
+     * 导致 {@link Checkable} 对象更改选中状态
      *
      * @param checked      视图的当前选中状态
-     * @param listPosition {@link CheckableChildViewHolder} 的平面位置（原始索引）
+     * @param listPosition {@link com.thoughtbot.expandablecheckrecyclerview.viewholders.CheckableChildViewHolder}
+     *                     的平面位置（原始索引）
      */
     public void onChildCheckChanged(boolean checked, ExpandableListPosition listPosition) {
-        CheckedExpandableGroup group =
-                (CheckedExpandableGroup) expandableList.groups.get(listPosition.groupPos);
-        group.onChildClicked(listPosition.childPos, checked);
-        if (childrenUpdateListener != null) {
-            childrenUpdateListener.updateChildrenCheckState(
-                    expandableList.getFlattenedFirstChildIndex(listPosition),
-                    expandableList.getExpandableGroupItemCount(listPosition));
-        }
+        onChildCheckChanged(checked, listPosition.groupPos, listPosition.childPos);
+    }
+
+    /**
+     * 与 {@link #onChildCheckChanged(boolean, ExpandableListPosition)} 相同，但直接使用组和子项的索引
+     *
+     * @param checked    视图的当前选中状态
+     * @param groupIndex 组在 {@link ExpandableList#groups} 中的索引
+     * @param childIndex 子项在其组内的索引
+     */
+    public void onChildCheckChanged(boolean checked, int groupIndex, int childIndex) {
+        applyChildCheck(checked, groupIndex, childIndex, true);
     }
 
     public void checkChild(boolean checked, int groupIndex, int childIndex) {
+        //only update children check states if group is expanded
+        applyChildCheck(checked, groupIndex, childIndex, expandableList.isGroupExpanded(groupIndex));
+    }
+
+    /**
+     * {@link SingleCheckExpandableGroup} 和 {@link MultiCheckExpandableGroup} 的一次点击最多改变之前选中的子项和被点击的子项，
+     * 只更新这两个子项的统计并只通知这两行。其他的组仍按整组处理
+     */
+    private void applyChildCheck(boolean checked, int groupIndex, int childIndex, boolean notify) {
         CheckedExpandableGroup group = (CheckedExpandableGroup) expandableList.groups.get(groupIndex);
-        group.onChildClicked(childIndex, checked);
-        if (childrenUpdateListener != null) {
-            //only update children check states if group is expanded
-            boolean isGroupExpanded = expandableList.expandedGroupIndexes[groupIndex];
-            if (isGroupExpanded) {
+        if (!(group instanceof SingleCheckExpandableGroup || group instanceof MultiCheckExpandableGroup)) {
+            group.onChildClicked(childIndex, checked);
+            notifyGroupCheckStateChanged(groupIndex);
+            if (notify && childrenUpdateListener != null) {
                 childrenUpdateListener.updateChildrenCheckState(
                         expandableList.getFlattenedFirstChildIndex(groupIndex), group.getItemCount());
             }
+            return;
+        }
+
+        ensureTracked();
+        int previous = group instanceof SingleCheckExpandableGroup
+                ? ((SingleCheckExpandableGroup) group).getSelectedIndex() : -1;
+        if (previous == childIndex) {
+            previous = -1;
+        }
+        boolean wasChecked = group.isChildChecked(childIndex);
+        group.onChildClicked(childIndex, checked);
+        boolean previousChanged = previous >= 0 && updateChild(groupIndex, previous, true);
+        updateChild(groupIndex, childIndex, wasChecked);
+        checkVersion++;
+
+        if (notify && childrenUpdateListener != null) {
+            int firstChildIndex = expandableList.getFlattenedFirstChildIndex(groupIndex);
+            if (previousChanged) {
+                childrenUpdateListener.updateChildCheckState(firstChildIndex + previous);
+            }
+            // 被点击的行总是重新绑定，单选组中取消选中的点击会被撤销
+            childrenUpdateListener.updateChildCheckState(firstChildIndex + childIndex);
         }
     }
 
+    /**
+     * 以 O(1) 更新单个子项对统计的影响
+     *
+     * @return 如果该子项的选中状态发生了变化为 true
+     */
+    private boolean updateChild(int groupIndex, int childIndex, boolean wasChecked) {
+        CheckedExpandableGroup group = (CheckedExpandableGroup) trackedGroups.get(groupIndex);
+        boolean isChecked = group.isChildChecked(childIndex);
+        if (isChecked == wasChecked) {
+            return false;
+        }
+        PackedBitSet initial = groupIndex < initialSelections.length ? initialSelections[groupIndex] : null;
+        boolean initiallyChecked = initial != null && childIndex < initial.size() && initial.get(childIndex);
+        int changedDelta = isChecked == initiallyChecked ? -1 : 1;
+        int checkedDelta = isChecked ? 1 : -1;
+        groupChangedCounts[groupIndex] += changedDelta;
+        changedChildCount += changedDelta;
+        groupCheckedCounts[groupIndex] += checkedDelta;
+        checkedChildCount += checkedDelta;
+        return true;
+    }
+
     /**
      * @param listPosition 子列表项的 ExpandableListPosition 表示
      * @return 视图的当前选中状态
      */
     public boolean isChildChecked(ExpandableListPosition listPosition) {
-        CheckedExpandableGroup group =
-                (CheckedExpandableGroup) expandableList.groups.get(listPosition.groupPos);
-        return group.isChildChecked(listPosition.childPos);
+        return isChildChecked(listPosition.groupPos, listPosition.childPos);
+    }
+
+    /**
+     * @param groupIndex 组在 {@link ExpandableList#groups} 中的索引
+     * @param childIndex 子项在其组内的索引
+     * @return 视图的当前选中状态
+     */
+    public boolean isChildChecked(int groupIndex, int childIndex) {
+        CheckedExpandableGroup group = (CheckedExpandableGroup) expandableList.groups.get(groupIndex);
+        return group.isChildChecked(childIndex);
     }
 
     /**
-     * @return 所有选中子项的索引列表
+     * @return 所有选中子项的平面位置。只访问有选中子项的组，并按位跳到下一个选中的子项
      */
     public List<Integer> getCheckedPositions() {
-        List<Integer> selected = new ArrayList<>();
-        for (int i = 0; i < expandableList.groups.size(); i++) {
-            if (expandableList.groups.get(i) instanceof CheckedExpandableGroup) {
-                CheckedExpandableGroup group = (CheckedExpandableGroup) expandableList.groups.get(i);
-                for (int j = 0; j < group.getItemCount(); j++) {
-                    if (group.isChildChecked(j)) {
-                        long packedPosition = ExpandableListView.getPackedPositionForChild(i, j);
-                        selected.add(expandableList.getFlattenedChildIndex(packedPosition));
-                    }
-                }
+        ensureTracked();
+        List<Integer> selected = new ArrayList<>(checkedChildCount);
+        for (int i = 0; i < trackedGroupCount; i++) {
+            if (groupCheckedCounts[i] == 0) {
+                continue;
+            }
+            PackedBitSet selection = getCheckedGroup(trackedGroups, i).getSelection();
+            int firstChildIndex = expandableList.getFlattenedFirstChildIndex(i);
+            for (int j = selection.nextSetBit(0); j >= 0; j = selection.nextSetBit(j + 1)) {
+                selected.add(firstChildIndex + j);
             }
         }
         return selected;
     }
 
     /**
-     * @return true 如果任何子项的检查状态自此类初始化以来已更改
+     * @return true 如果任何子项的检查状态自此类初始化以来已更改，O(1)
      */
     public boolean checksChanged() {
-        return !initialCheckedPositions.equals(getCheckedPositions());
+        ensureTracked();
+        return changedChildCount != 0;
+    }
+
+    /**
+     * @return 选中状态与初始化时不同的子项数，O(1)
+     */
+    public int getChangedChildCount() {
+        ensureTracked();
+        return changedChildCount;
+    }
+
+    /**
+     * @return 所有组中选中的子项总数，O(1)
+     */
+    public int getCheckedChildCount() {
+        ensureTracked();
+        return checkedChildCount;
+    }
+
+    /**
+     * @return 每次选中状态变化都会递增的版本号，可用于判断缓存的选中结果是否过期
+     */
+    public int getCheckVersion() {
+        ensureTracked();
+        return checkVersion;
     }
 
     /**
      * 清除之前选中的所有选项
      */
     public void clearCheckStates() {
+        ensureTracked();
         for (int i = 0; i < expandableList.groups.size(); i++) {
             CheckedExpandableGroup group = (CheckedExpandableGroup) expandableList.groups.get(i);
             group.clearSelections();
+            updateGroup(i);
         }
+        checkVersion++;
     }
 }
@@ -9,4 +9,14 @@ public interface OnChildrenCheckStateChangedListener {
    * @param numChildren {@link CheckedExpandableGroup} 中的孩子总数
    */
   void updateChildrenCheckState(int firstChildFlattenedIndex, int numChildren);
+
+  /**
+   * 只有单个子项的选中状态发生变化时调用，例如单选组切换选中项时分别对旧的和新的选中项调用。
+   * 默认转发给 {@link #updateChildrenCheckState(int, int)}，已有的实现无需修改
+   *
+   * @param childFlattenedIndex 子项的平面位置
+   */
+  default void updateChildCheckState(int childFlattenedIndex) {
+    updateChildrenCheckState(childFlattenedIndex, 1);
+  }
 }
@@ -0,0 +1,36 @@
+package com.thoughtbot.expandablecheckrecyclerview.models;
+
+import java.util.List;
+
+/**
+ * 只有子项的选中状态变化时随 {@code notifyItemChanged} 发出的 payload，收到它的子项只需要更新 Checkable 的状态，
+ * 不需要重新绑定整行
+ */
+public final class CheckStatePayload {
+
+  public static final CheckStatePayload INSTANCE = new CheckStatePayload();
+
+  private CheckStatePayload() {
+  }
+
+  /**
+   * @param payloads {@code onBindViewHolder} 收到的 payload 列表
+   * @return 如果列表非空并且只包含 {@link CheckStatePayload} 为 true
+   */
+  public static boolean isCheckStateOnly(List<Object> payloads) {
+    if (payloads.isEmpty()) {
+      return false;
+    }
+    for (int i = 0; i < payloads.size(); i++) {
+      if (!(payloads.get(i) instanceof CheckStatePayload)) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  @Override
+  public String toString() {
+    return "CheckStatePayload";
+  }
+}
@@ -1,54 +1,162 @@
 package com.thoughtbot.expandablecheckrecyclerview.models;
 
+import android.os.BadParcelableException;
 import android.os.Parcel;
+import android.os.Parcelable;
 //import com.thoughtbot.expandablerecyclerview.models.ExpandableGroup;
 import com.thoughtbot.expandablerecyclerview.models.ExpandableGroup;
+import com.thoughtbot.expandablerecyclerview.models.PackedBitSet;
 
-import java.util.Arrays;
 import java.util.List;
 
 /**
- * ExpandableGroup 的扩展，它保持其子项的选中状态
+ * ExpandableGroup 的扩展，它保持其子项的选中状态。选中状态按位打包保存，清除、全选和计数为 O(n/64)
  */
 public abstract class CheckedExpandableGroup extends ExpandableGroup {
 
-  public boolean[] selectedChildren;
+  /**
+   * Parcel 中选中状态的魔数，旧格式在这个位置写的是 boolean[] 的长度，不会与之相同
+   */
+  private static final int SELECTION_MAGIC = 0x43454731;
+  private static final int SELECTION_VERSION = 1;
+
+  private PackedBitSet selectedChildren;
 
   public CheckedExpandableGroup(String title, List items) {
     super(title, items);
-    selectedChildren = new boolean[items.size()];
-    for (int i = 0; i < items.size(); i++) {
-      selectedChildren[i] = false;
-    }
+    selectedChildren = new PackedBitSet(items.size());
   }
 
   public void checkChild(int childIndex) {
-    selectedChildren[childIndex] = true;
+    selectedChildren.set(childIndex);
   }
 
   public void unCheckChild(int childIndex) {
-    selectedChildren[childIndex] = false;
+    selectedChildren.clear(childIndex);
   }
 
   public boolean isChildChecked(int childIndex) {
-    return selectedChildren[childIndex];
+    return selectedChildren.get(childIndex);
   }
 
   public void clearSelections() {
     if (selectedChildren != null) {
-      Arrays.fill(selectedChildren, false);
+      selectedChildren.clearAll();
+    }
+  }
+
+  /**
+   * 选中所有子项
+   */
+  public void checkAllChildren() {
+    selectedChildren.setAll();
+  }
+
+  /**
+   * @return 选中的子项数
+   */
+  public int getCheckedChildCount() {
+    return selectedChildren.cardinality();
+  }
+
+  /**
+   * @return 保存选中状态的位集合，供批量读取；修改请使用 {@link #checkChild(int)} 等方法
+   */
+  public PackedBitSet getSelection() {
+    return selectedChildren;
+  }
+
+  /**
+   * 整体替换选中状态，例如从保存的实例状态中恢复
+   *
+   * @param selection 选中状态，之后由本对象持有；长度与子项数不同时会被截断或补 false
+   */
+  public void setSelection(PackedBitSet selection) {
+    if (selection.size() != getItemCount()) {
+      selection.resize(getItemCount());
     }
+    selectedChildren = selection;
+  }
+
+  /**
+   * 新子项未选中，之后子项的选中状态随之后移，O(n/64)
+   */
+  @Override
+  public void insertItem(int childIndex, Parcelable item) {
+    super.insertItem(childIndex, item);
+    selectedChildren.insert(childIndex, false);
+  }
+
+  @Override
+  public Parcelable removeItem(int childIndex) {
+    Parcelable item = super.removeItem(childIndex);
+    selectedChildren.remove(childIndex);
+    return item;
+  }
+
+  @Override
+  public void moveItem(int fromChildIndex, int toChildIndex) {
+    super.moveItem(fromChildIndex, toChildIndex);
+    selectedChildren.move(fromChildIndex, toChildIndex);
+  }
+
+  /**
+   * 兼容旧版本中公开的 {@code boolean[] selectedChildren} 字段。
+   * <p>
+   * 不兼容的变化：返回的是副本，原地修改它不再影响选中状态。请改用 {@link #checkChild(int)}、
+   * {@link #unCheckChild(int)} 或在修改后调用 {@link #setSelectedChildren(boolean[])}
+   *
+   * @return 每个子项选中状态的副本
+   * @deprecated 使用 {@link #isChildChecked(int)} 或 {@link #getSelection()}
+   */
+  @Deprecated
+  public boolean[] getSelectedChildren() {
+    return selectedChildren.toBooleanArray();
+  }
+
+  /**
+   * 兼容旧版本中公开的 {@code boolean[] selectedChildren} 字段
+   *
+   * @param selectedChildren 每个子项的选中状态
+   */
+  public void setSelectedChildren(boolean[] selectedChildren) {
+    this.selectedChildren = PackedBitSet.fromBooleanArray(selectedChildren);
   }
 
   protected CheckedExpandableGroup(Parcel in) {
     super(in);
-    selectedChildren = in.createBooleanArray();
+    int header = in.readInt();
+    if (header == SELECTION_MAGIC) {
+      int version = in.readInt();
+      if (version > SELECTION_VERSION) {
+        throw new BadParcelableException("Unsupported CheckedExpandableGroup parcel version " + version);
+      }
+      int size = in.readInt();
+      selectedChildren = PackedBitSet.fromWords(in.createLongArray(), size);
+      return;
+    }
+    // 旧格式只写了一次 writeBooleanArray：header 是数组长度（null 时为 -1），后面每个元素一个 int
+    if (header < 0) {
+      selectedChildren = new PackedBitSet(getItemCount());
+      return;
+    }
+    boolean[] selected = new boolean[header];
+    for (int i = 0; i < header; i++) {
+      selected[i] = in.readInt() != 0;
+    }
+    selectedChildren = PackedBitSet.fromBooleanArray(selected);
   }
 
+  /**
+   * 写入魔数、版本号、子项数和按位打包的选中状态
+   */
   @Override
   public void writeToParcel(Parcel dest, int flags) {
     super.writeToParcel(dest, flags);
-    dest.writeBooleanArray(selectedChildren);
+    dest.writeInt(SELECTION_MAGIC);
+    dest.writeInt(SELECTION_VERSION);
+    dest.writeInt(selectedChildren.size());
+    dest.writeLongArray(selectedChildren.toWords());
   }
 
   @Override
@@ -1,13 +1,18 @@
 package com.thoughtbot.expandablecheckrecyclerview.models;
 
 import android.os.Parcel;
+import android.os.Parcelable;
+import com.thoughtbot.expandablerecyclerview.models.PackedBitSet;
 import java.util.List;
 
 /**
- * {@link CheckedExpandableGroup} 的一个子类，允许一次只检查*一个*孩子
+ * {@link CheckedExpandableGroup} 的一个子类，允许一次只检查*一个*孩子。
+ * 记录当前选中的子项，切换选中项时直接清除旧的选中位，不再扫描位集合
  */
 public class SingleCheckExpandableGroup extends CheckedExpandableGroup {
 
+  private int selectedIndex = -1;
+
   public SingleCheckExpandableGroup(String title, List items) {
     super(title, items);
   }
@@ -15,15 +20,92 @@ public class SingleCheckExpandableGroup extends CheckedExpandableGroup {
   @Override
   public void onChildClicked(int childIndex, boolean checked) {
     if (checked) {
-      for (int i = 0; i < getItemCount(); i++) {
-        unCheckChild(i);
-      }
       checkChild(childIndex);
     }
   }
 
+  /**
+   * @return 当前选中的子项的索引，没有则返回 -1
+   */
+  public int getSelectedIndex() {
+    return selectedIndex;
+  }
+
+  @Override
+  public void checkChild(int childIndex) {
+    if (selectedIndex >= 0 && selectedIndex != childIndex) {
+      super.unCheckChild(selectedIndex);
+    }
+    super.checkChild(childIndex);
+    selectedIndex = childIndex;
+  }
+
+  @Override
+  public void unCheckChild(int childIndex) {
+    super.unCheckChild(childIndex);
+    if (childIndex == selectedIndex) {
+      selectedIndex = -1;
+    }
+  }
+
+  @Override
+  public void clearSelections() {
+    super.clearSelections();
+    selectedIndex = -1;
+  }
+
+  @Override
+  public void checkAllChildren() {
+    super.checkAllChildren();
+    selectedIndex = getSelection().nextSetBit(0);
+  }
+
+  @Override
+  public void setSelectedChildren(boolean[] selectedChildren) {
+    super.setSelectedChildren(selectedChildren);
+    selectedIndex = getSelection().nextSetBit(0);
+  }
+
+  @Override
+  public void setSelection(PackedBitSet selection) {
+    super.setSelection(selection);
+    selectedIndex = getSelection().nextSetBit(0);
+  }
+
+  @Override
+  public void insertItem(int childIndex, Parcelable item) {
+    super.insertItem(childIndex, item);
+    if (selectedIndex >= childIndex) {
+      selectedIndex++;
+    }
+  }
+
+  @Override
+  public Parcelable removeItem(int childIndex) {
+    Parcelable item = super.removeItem(childIndex);
+    if (childIndex == selectedIndex) {
+      selectedIndex = -1;
+    } else if (selectedIndex > childIndex) {
+      selectedIndex--;
+    }
+    return item;
+  }
+
+  @Override
+  public void moveItem(int fromChildIndex, int toChildIndex) {
+    super.moveItem(fromChildIndex, toChildIndex);
+    if (selectedIndex == fromChildIndex) {
+      selectedIndex = toChildIndex;
+    } else if (fromChildIndex < selectedIndex && selectedIndex <= toChildIndex) {
+      selectedIndex--;
+    } else if (toChildIndex <= selectedIndex && selectedIndex < fromChildIndex) {
+      selectedIndex++;
+    }
+  }
+
   protected SingleCheckExpandableGroup(Parcel in) {
     super(in);
+    selectedIndex = getSelection().nextSetBit(0);
   }
 
   @Override
@@ -4,7 +4,9 @@ import android.view.View;
 import android.view.View.OnClickListener;
 import android.widget.Checkable;
 import com.thoughtbot.expandablecheckrecyclerview.listeners.OnChildCheckChangedListener;
+import com.thoughtbot.expandablecheckrecyclerview.models.CheckStatePayload;
 import com.thoughtbot.expandablerecyclerview.viewholders.ChildViewHolder;
+import java.util.List;
 
 /**
  * ChildViewHolder 的一个实例，它有一个 Checkable 小部件，以便此视图可以具有选中和未选中状态
@@ -28,6 +30,25 @@ public abstract class CheckableChildViewHolder extends ChildViewHolder implement
     checkable.setChecked(checked);
   }
 
+  /**
+   * 带 payload 的绑定。payload 只包含 {@link CheckStatePayload} 时只调用 {@link Checkable#setChecked(boolean)}，
+   * 否则等同于 {@link #onBindViewHolder(int, boolean)}
+   *
+   * @param flatPos  这个 CheckableChildViewHolder 在 RecyclerView 中的原始索引
+   * @param checked  子项当前的选中状态
+   * @param payloads {@code onBindViewHolder} 收到的 payload 列表
+   * @return 如果只更新了选中状态为 true，调用方不需要再重新绑定其他内容
+   */
+  public boolean onBindViewHolder(int flatPos, boolean checked, List<Object> payloads) {
+    if (CheckStatePayload.isCheckStateOnly(payloads)) {
+      checkable = getCheckable();
+      checkable.setChecked(checked);
+      return true;
+    }
+    onBindViewHolder(flatPos, checked);
+    return false;
+  }
+
   @Override
   public void onClick(View v) {
     checkable.toggle();
@@ -0,0 +1,12 @@
+package com.thoughtbot.expandablerecyclerview.models;
+
+/**
+ * {@link ExpandableListModel} 对组的唯一要求：子项数量
+ */
+public interface ExpandableGroupModel {
+
+    /**
+     * @return 组内子项的数量，展开时在平面列表中占用的行数（不含组标题）
+     */
+    int getItemCount();
+}
@@ -0,0 +1,493 @@
+package com.thoughtbot.expandablerecyclerview.models;
+
+import java.util.IdentityHashMap;
+import java.util.List;
+
+/**
+ * 在平面列表位置（屏幕上看到的组和子项）与完整的组及其子项列表之间换算。
+ * <p>
+ * 术语：flat position - 平面列表位置，一个项目相对于所有其他*可见*项目的位置。例如有三个组，每组 2 个孩子并且都折叠起来，
+ * 最后一组的平面位置为 2；展开第一个组后，最后一组的平面位置变为 4。
+ * <p>
+ * 纯 Java 实现，只依赖 {@link ExpandableGroupModel#getItemCount()}，可以脱离 Android 在普通 JVM 上测试和基准测试。
+ * Android 模块中的 {@code ExpandableList} 以 {@code ExpandableGroup} 为组类型继承本类
+ *
+ * @param <G> 组类型
+ */
+public class ExpandableListModel<G extends ExpandableGroupModel> {
+
+    /**
+     * 顺序访问时游标最多向前或向后跨越的组数，超出后退回前缀和索引上的二分搜索
+     */
+    private static final int MAX_CURSOR_STEPS = 8;
+
+    public List<? extends G> groups;
+
+    /**
+     * 每组的展开状态，按位打包保存
+     */
+    private PackedBitSet expandedGroups;
+
+    /**
+     * 每组可见行数的前缀和索引，在 {@link #groups} 被整体替换时惰性重建
+     */
+    private final FlatPositionIndex index = new FlatPositionIndex();
+    private List<? extends G> indexedGroups;
+    private boolean indexValid;
+
+    /**
+     * 组对象到其在 {@link #groups} 中索引的映射，按引用比较，随位置索引一起失效，在首次查询时重建
+     */
+    private IdentityHashMap<G, Integer> groupIndexes;
+
+    /**
+     * 上一次查询的游标：所在组以及该组标题的平面位置。RecyclerView 滚动时按顺序请求相邻位置，
+     * 从游标出发步进几组即可命中，无需每次从头搜索
+     */
+    private boolean cursorValid;
+    private int cursorGroup;
+    private int cursorGroupStart;
+
+    /**
+     * 每次展开状态或数据变化时递增，供异步计算的结果在发布前确认基准状态没有变化
+     */
+    private int modCount;
+
+    private boolean cursorStatsEnabled;
+    private long cursorLookups;
+    private long cursorHits;
+
+    public ExpandableListModel(List<? extends G> groups) {
+        this.groups = groups;
+        expandedGroups = new PackedBitSet(groups.size());
+    }
+
+    /**
+     * 在直接修改了 {@link #groups} 的内容或某个组的子项之后调用，使下一次查询时重建位置索引
+     */
+    public void notifyDataChanged() {
+        indexValid = false;
+        modCount++;
+    }
+
+    /**
+     * 整体替换组列表及其展开状态
+     *
+     * @param groups         新的组列表
+     * @param expandedGroups 与 {@code groups} 等长的展开状态，之后由本对象持有
+     */
+    public void setGroups(List<? extends G> groups, PackedBitSet expandedGroups) {
+        this.groups = groups;
+        this.expandedGroups = expandedGroups;
+        notifyDataChanged();
+    }
+
+    /**
+     * @return 所有组展开状态的副本
+     */
+    public PackedBitSet copyExpandState() {
+        ensureIndex();
+        return expandedGroups.copy();
+    }
+
+    /**
+     * 整体替换所有组的展开状态，例如从保存的实例状态中恢复
+     *
+     * @param expandedGroups 展开状态，之后由本对象持有；长度与 {@link #groups} 不同时会被截断或补 false
+     */
+    public void setExpandState(PackedBitSet expandedGroups) {
+        this.expandedGroups = expandedGroups;
+        notifyDataChanged();
+    }
+
+    /**
+     * @return 展开的组数，按字 popcount，O(n/64)
+     */
+    public int getExpandedGroupCount() {
+        ensureIndex();
+        return expandedGroups.cardinality();
+    }
+
+    /**
+     * @param fromGroupIndex 起始组索引（包含）
+     * @param toGroupIndex   结束组索引（不包含）
+     * @return {@code [fromGroupIndex, toGroupIndex)} 内展开的组数，按字 popcount
+     */
+    public int getExpandedGroupCount(int fromGroupIndex, int toGroupIndex) {
+        ensureIndex();
+        return expandedGroups.cardinality(fromGroupIndex, toGroupIndex);
+    }
+
+    /**
+     * @param fromGroupIndex 开始查找的组索引（包含）
+     * @param expanded       要查找的展开状态
+     * @return 从 {@code fromGroupIndex} 开始第一个展开状态为 {@code expanded} 的组，按字跳过，没有则返回 -1
+     */
+    public int nextGroupWithExpandState(int fromGroupIndex, boolean expanded) {
+        ensureIndex();
+        return expanded ? expandedGroups.nextSetBit(fromGroupIndex)
+                : expandedGroups.nextClearBit(fromGroupIndex);
+    }
+
+    /**
+     * @return 修改计数，展开状态或数据每变化一次就会改变
+     */
+    public int getModificationCount() {
+        return modCount;
+    }
+
+    private FlatPositionIndex ensureIndex() {
+        if (!indexValid || indexedGroups != groups || index.size() != groups.size()) {
+            int size = groups.size();
+            if (expandedGroups.size() != size) {
+                expandedGroups.resize(size);
+            }
+            int[] visibleCounts = new int[size];
+            for (int i = 0; i < size; i++) {
+                visibleCounts[i] = numberOfVisibleItemsInGroup(i);
+            }
+            index.rebuild(visibleCounts, size);
+            indexedGroups = groups;
+            indexValid = true;
+            groupIndexes = null;
+            cursorValid = false;
+        }
+        return index;
+    }
+
+    /**
+     * 以 O(1) 查找组的索引。先按引用查找，找不到时退回 {@link List#indexOf(Object)}，与之前按 equals 比较的行为保持一致
+     *
+     * @param group {@link #groups} 中的 组
+     * @return 组在 {@link #groups} 中的索引，如果找不到则返回 -1
+     */
+    public int indexOfGroup(G group) {
+        ensureIndex();
+        int groupIndex = lookupGroupIndex(group);
+        return groupIndex >= 0 ? groupIndex : groups.indexOf(group);
+    }
+
+    private int lookupGroupIndex(G group) {
+        if (groupIndexes == null) {
+            int size = groups.size();
+            groupIndexes = new IdentityHashMap<>(size);
+            for (int i = 0; i < size; i++) {
+                groupIndexes.put(groups.get(i), i);
+            }
+        }
+        Integer groupIndex = groupIndexes.get(group);
+        // 列表可能被原地修改过（例如 set），映射中的位置已不再指向该组
+        if (groupIndex == null || groups.get(groupIndex) != group) {
+            return -1;
+        }
+        return groupIndex;
+    }
+
+    /**
+     * @param groupIndex 组在 {@link #groups} 中的索引
+     * @return 如果该组展开为真，如果折叠为假
+     */
+    public boolean isGroupExpanded(int groupIndex) {
+        ensureIndex();
+        return expandedGroups.get(groupIndex);
+    }
+
+    /**
+     * 更新组的展开状态，并以 O(log n) 同步更新位置索引
+     *
+     * @param groupIndex 组在 {@link #groups} 中的索引
+     * @param expanded   新的展开状态
+     */
+    public void setGroupExpanded(int groupIndex, boolean expanded) {
+        FlatPositionIndex index = ensureIndex();
+        expandedGroups.set(groupIndex, expanded);
+        index.setCount(groupIndex, numberOfVisibleItemsInGroup(groupIndex));
+        cursorValid = false;
+        modCount++;
+    }
+
+    /**
+     * 在 {@link #groups} 中插入一个折叠的组，同步平移展开状态和位置索引。
+     * 位置索引只重算插入点之后的部分，在末尾追加为 O(log n)
+     *
+     * @param groupIndex 新组的索引，可以等于组数
+     * @param group      新组
+     */
+    @SuppressWarnings("unchecked")
+    public void insertGroup(int groupIndex, G group) {
+        FlatPositionIndex index = ensureIndex();
+        ((List<G>) groups).add(groupIndex, group);
+        expandedGroups.insert(groupIndex, false);
+        index.insert(groupIndex, 1);
+        onGroupsShifted();
+    }
+
+    /**
+     * 从 {@link #groups} 中删除一个组，同步平移展开状态和位置索引。位置索引只重算删除点之后的部分
+     *
+     * @param groupIndex 要删除的组的索引
+     * @return 被删除的组
+     */
+    public G removeGroup(int groupIndex) {
+        FlatPositionIndex index = ensureIndex();
+        G group = groups.remove(groupIndex);
+        expandedGroups.remove(groupIndex);
+        index.remove(groupIndex);
+        onGroupsShifted();
+        return group;
+    }
+
+    /**
+     * 在 {@link #groups} 中移动一个组，展开状态随组一起移动，O(n)
+     *
+     * @param fromGroupIndex 组原来的索引
+     * @param toGroupIndex   组移动后的索引
+     */
+    @SuppressWarnings("unchecked")
+    public void moveGroup(int fromGroupIndex, int toGroupIndex) {
+        FlatPositionIndex index = ensureIndex();
+        List<G> list = (List<G>) groups;
+        list.add(toGroupIndex, list.remove(fromGroupIndex));
+        expandedGroups.move(fromGroupIndex, toGroupIndex);
+        index.move(fromGroupIndex, toGroupIndex);
+        onGroupsShifted();
+    }
+
+    private void onGroupsShifted() {
+        groupIndexes = null;
+        cursorValid = false;
+        modCount++;
+    }
+
+    /**
+     * 在某个组的子项变化（数量变化或子项移动）后调用，以 O(log n) 更新该组在位置索引中的可见行数
+     *
+     * @param groupIndex 子项发生变化的组在 {@link #groups} 中的索引
+     */
+    public void notifyGroupItemCountChanged(int groupIndex) {
+        FlatPositionIndex index = ensureIndex();
+        index.setCount(groupIndex, numberOfVisibleItemsInGroup(groupIndex));
+        cursorValid = false;
+        modCount++;
+    }
+
+    /**
+     * 批量更新多个组的展开状态。变化的组较少时逐个做 O(log n) 的点更新，较多时直接写入后以 O(n) 重建位置索引
+     *
+     * @param groupIndexes 要更新的组在 {@link #groups} 中的索引
+     * @param count        {@code groupIndexes} 中有效元素的个数
+     * @param expanded     新的展开状态
+     */
+    public void setGroupsExpanded(int[] groupIndexes, int count, boolean expanded) {
+        int size = ensureIndex().size();
+        int log = 32 - Integer.numberOfLeadingZeros(size);
+        if ((long) count * log < size) {
+            for (int i = 0; i < count; i++) {
+                setGroupExpanded(groupIndexes[i], expanded);
+            }
+            return;
+        }
+        for (int i = 0; i < count; i++) {
+            expandedGroups.set(groupIndexes[i], expanded);
+        }
+        notifyDataChanged();
+    }
+
+    /**
+     * 开启或关闭顺序访问游标的命中统计，开启时会清零之前的计数
+     *
+     * @param enabled 是否统计
+     */
+    public void setCursorStatsEnabled(boolean enabled) {
+        cursorStatsEnabled = enabled;
+        cursorLookups = 0;
+        cursorHits = 0;
+    }
+
+    /**
+     * @return 开启统计以来 {@link #getUnflattenedPackedPosition(int)} 由游标直接命中的比例，没有查询时返回 0
+     */
+    public float getCursorHitRate() {
+        return cursorLookups == 0 ? 0f : (float) cursorHits / cursorLookups;
+    }
+
+    /**
+     * @param group 组在完整集合中的索引 {@link #groups}
+     * @return 特定组的可见行项目数。 如果组已折叠，则为组标题返回 1。 如果组被扩展，则返回组中孩子的总数 + 1 为组标题
+     */
+    private int numberOfVisibleItemsInGroup(int group) {
+        if (expandedGroups.get(group)) {
+            return groups.get(group).getItemCount() + 1;
+        } else {
+            return 1;
+        }
+    }
+
+    /**
+     * @return 总可见行数，由展开/折叠增量维护，O(1)
+     */
+    public int getVisibleItemCount() {
+        return ensureIndex().total();
+    }
+
+    /**
+     * 将平面列表位置（列表中项目（子项或组）的原始位置）转换为 a) 组 pos 如果指定的平面列表位置对应于组，或 b)
+     * 子 pos 如果它对应于子项。 在每组可见行数的前缀和索引上执行二分搜索，O(log n)。
+     *
+     * @param flPos 要翻译的平面列表位置
+     * @return 包含在 {@link ExpandableListPosition} 对象中的指定平面列表位置的组位置或子位置，该对象包含用于插入等的附加有用信息。
+     */
+    public ExpandableListPosition getUnflattenedPosition(int flPos) {
+        long packedPosition = getUnflattenedPackedPosition(flPos);
+        return ExpandableListPosition.obtain(ExpandableListPosition.getPackedPositionType(packedPosition),
+                ExpandableListPosition.getPackedPositionGroup(packedPosition),
+                ExpandableListPosition.getPackedPositionChild(packedPosition), flPos);
+    }
+
+    /**
+     * 与 {@link #getUnflattenedPosition(int)} 相同，但不分配对象，结果以打包的 long 返回，
+     * 使用 {@link ExpandableListPosition#getPackedPositionType(long)}、{@link ExpandableListPosition#getPackedPositionGroup(long)}
+     * 和 {@link ExpandableListPosition#getPackedPositionChild(long)} 解码
+     *
+     * @param flPos 要翻译的平面列表位置
+     * @return 指定平面列表位置的打包组位置或子位置
+     */
+    public long getUnflattenedPackedPosition(int flPos) {
+        FlatPositionIndex index = ensureIndex();
+        int groupIndex = -1;
+        int groupStart = 0;
+        if (cursorValid) {
+            groupIndex = cursorGroup;
+            groupStart = cursorGroupStart;
+            int steps = 0;
+            if (flPos >= groupStart) {
+                while (groupIndex < index.size() && flPos >= groupStart + index.getCount(groupIndex)
+                        && steps++ < MAX_CURSOR_STEPS) {
+                    groupStart += index.getCount(groupIndex);
+                    groupIndex++;
+                }
+            } else {
+                while (groupIndex > 0 && flPos < groupStart && steps++ < MAX_CURSOR_STEPS) {
+                    groupIndex--;
+                    groupStart -= index.getCount(groupIndex);
+                }
+            }
+            if (groupIndex >= index.size() || flPos < groupStart
+                    || flPos >= groupStart + index.getCount(groupIndex)) {
+                groupIndex = -1;
+            }
+        }
+        if (cursorStatsEnabled) {
+            cursorLookups++;
+            if (groupIndex >= 0) {
+                cursorHits++;
+            }
+        }
+        if (groupIndex < 0) {
+            groupIndex = index.findGroup(flPos);
+            if (groupIndex < 0) {
+                throw new RuntimeException("Unknown state");
+            }
+            groupStart = index.prefixSum(groupIndex);
+        }
+        cursorValid = true;
+        cursorGroup = groupIndex;
+        cursorGroupStart = groupStart;
+
+        int adapted = flPos - groupStart;
+        if (adapted == 0) {
+            return ExpandableListPosition.packGroupPosition(groupIndex);
+        }
+        return ExpandableListPosition.packChildPosition(groupIndex, adapted - 1);
+    }
+
+    /**
+     * @param listPosition 代表一个孩子或一个组
+     * @return {@link #getVisibleItemCount()} 中组的索引
+     */
+    public int getFlattenedGroupIndex(ExpandableListPosition listPosition) {
+        return getFlattenedGroupIndex(listPosition.groupPos);
+    }
+
+    /**
+     * @param groupIndex 表示 {@link #groups} 内组的索引
+     * @return {@link #getVisibleItemCount()} 中组的索引
+     */
+    public int getFlattenedGroupIndex(int groupIndex) {
+        return groupIndex > 0 ? ensureIndex().prefixSum(groupIndex) : 0;
+    }
+
+    /**
+     * @param group {@link #groups} 中的组
+     * @return {@link #getVisibleItemCount()} 中组的索引，如果 {@link #indexOfGroup(ExpandableGroupModel)} 找不到组，则返回 0
+     */
+    public int getFlattenedGroupIndex(G group) {
+        return getFlattenedGroupIndex(indexOfGroup(group));
+    }
+
+    /**
+     * 将子位置转换为平面列表位置。
+     *
+     * @param packedPosition 要在其打包位置表示中转换的子位置。
+     * @return 给定孩子的平面列表位置
+     */
+    public int getFlattenedChildIndex(long packedPosition) {
+        return getFlattenedChildIndex(ExpandableListPosition.getPackedPositionGroup(packedPosition),
+                ExpandableListPosition.getPackedPositionChild(packedPosition));
+    }
+
+    /**
+     * 将子位置转换为平面列表位置。
+     *
+     * @param listPosition 要在其 {@link ExpandableListPosition} 表示中转换的子位置。
+     * @return 给定孩子的平面列表位置
+     */
+    public int getFlattenedChildIndex(ExpandableListPosition listPosition) {
+        return getFlattenedGroupIndex(listPosition.groupPos) + listPosition.childPos + 1;
+    }
+
+    /**
+     * 将子位置的详细信息转换为平面列表位置。
+     *
+     * @param groupIndex {@link #groups} 中组的索引
+     * @param childIndex 子项在组中的索引
+     * @return 给定孩子的平面列表位置
+     */
+    public int getFlattenedChildIndex(int groupIndex, int childIndex) {
+        return getFlattenedGroupIndex(groupIndex) + childIndex + 1;
+    }
+
+    /**
+     * @param groupIndex {@link #groups} 中组的索引
+     * @return 组中第一个孩子的平面列表位置
+     */
+    public int getFlattenedFirstChildIndex(int groupIndex) {
+        return getFlattenedGroupIndex(groupIndex) + 1;
+    }
+
+    /**
+     * @param listPosition 要在其 {@link ExpandableListPosition} 表示中转换的子位置。
+     * @return 组中第一个孩子的平面列表位置
+     */
+    public int getFlattenedFirstChildIndex(ExpandableListPosition listPosition) {
+        return getFlattenedGroupIndex(listPosition) + 1;
+    }
+
+    /**
+     * @param listPosition 一个 {@link ExpandableListPosition} 代表一个孩子或组
+     * @return 与@param listPosition 关联的组内的孩子总数
+     */
+    public int getExpandableGroupItemCount(ExpandableListPosition listPosition) {
+        return groups.get(listPosition.groupPos).getItemCount();
+    }
+
+    /**
+     * 将组 pos 或子 pos 转换为组。 如果 {@link ExpandableListPosition} 是子位置，则返回它所属的组
+     *
+     * @param listPosition a {@link ExpandableListPosition} 表示组位置或子位置
+     * @return 包含 listPosition 的组对象
+     */
+    public G getExpandableGroup(ExpandableListPosition listPosition) {
+        return groups.get(listPosition.groupPos);
+    }
+}
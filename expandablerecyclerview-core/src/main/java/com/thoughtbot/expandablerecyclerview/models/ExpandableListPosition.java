@@ -0,0 +1,382 @@
+package com.thoughtbot.expandablerecyclerview.models;
+
+import java.lang.ref.WeakReference;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * android.widget.ExpandableListPosition 的精确副本，因为 android.widget.ExpandableListPosition 具有包本地范围
+ * <p>
+ * ExpandableListPosition 可以指组的位置或子项的位置。 提及孩子的位置需要组位置（包含孩子的组）和孩子位置（孩子在该组中的位置）。
+ * 要创建对象，请使用 {@link #obtainChildPosition(int, int)} 或 {@link #obtainGroupPosition(int)}。
+ * <p>
+ * 打包位置由本类自己编解码，布局与 {@code android.widget.ExpandableListView} 的打包位置相同，但不依赖 Android。
+ */
+
+public class ExpandableListPosition {
+
+    private static final long PACKED_POSITION_MASK_CHILD = 0x00000000FFFFFFFFL;
+    private static final long PACKED_POSITION_MASK_GROUP = 0x7FFFFFFF00000000L;
+    private static final long PACKED_POSITION_MASK_TYPE = 0x8000000000000000L;
+    private static final long PACKED_POSITION_SHIFT_GROUP = 32;
+
+    /**
+     * 表示“没有位置”的打包值，与 {@code ExpandableListView.PACKED_POSITION_VALUE_NULL} 相同
+     */
+    public static final long PACKED_POSITION_VALUE_NULL = 0x00000000FFFFFFFFL;
+
+    private static final int DEFAULT_POOL_CAPACITY = 5;
+
+    /**
+     * 每个线程各自的回收池容量，见 {@link #setPoolCapacity(int)}
+     */
+    private static volatile int sPoolCapacity = DEFAULT_POOL_CAPACITY;
+
+    /**
+     * 仍在运行的线程的命中统计，只在读取统计或新线程创建回收池时遍历。
+     * 线程结束后它的计数被累加到 {@link #sRetiredPoolHits} 中，条目随之移除，列表不会随线程数无限增长
+     */
+    private static final List<PoolStats> sPoolStats = new ArrayList<>();
+    private static long sRetiredPoolHits;
+    private static long sRetiredPoolMisses;
+    private static long sPoolHitsBase;
+    private static long sPoolMissesBase;
+
+    /**
+     * 每个线程一个回收池，获取和回收都不需要加锁，后台线程之间也不会相互竞争
+     */
+    private static final ThreadLocal<Pool> sPool = new ThreadLocal<Pool>() {
+        @Override
+        protected Pool initialValue() {
+            Pool pool = new Pool();
+            synchronized (sPoolStats) {
+                retireFinishedPoolStats();
+                sPoolStats.add(pool.stats);
+            }
+            return pool;
+        }
+    };
+
+    /**
+     * 此数据类型表示子位置
+     */
+    public final static int CHILD = 1;
+
+    /**
+     * 此数据类型代表组位置
+     */
+    public final static int GROUP = 2;
+
+    /**
+     * 被引用组的位置，或被引用子组的父组
+     */
+    public int groupPos;
+
+    /**
+     * 孩子在其父组中的位置
+     */
+    public int childPos;
+
+    /**
+     * 项目在平面列表中的位置（可选，当组或子项的相应平面列表位置已知时在内部使用）
+     */
+    int flatListPos;
+
+    /**
+     * 这个 ExpandableListPosition 代表什么类型的位置
+     */
+    public int type;
+
+    /**
+     * 是否正在某个线程的回收池中
+     */
+    private boolean pooled;
+
+    private void resetState() {
+        groupPos = 0;
+        childPos = 0;
+        flatListPos = 0;
+        type = 0;
+    }
+
+    private ExpandableListPosition() {
+    }
+
+    public long getPackedPosition() {
+        if (type == CHILD) {
+            return packChildPosition(groupPos, childPos);
+        } else {
+            return packGroupPosition(groupPos);
+        }
+    }
+
+    /**
+     * 将组位置打包为 long，布局与 {@code ExpandableListView.getPackedPositionForGroup(int)} 相同
+     *
+     * @param groupPos 组的位置
+     * @return 打包后的位置
+     */
+    public static long packGroupPosition(int groupPos) {
+        return ((long) groupPos << PACKED_POSITION_SHIFT_GROUP) & PACKED_POSITION_MASK_GROUP;
+    }
+
+    /**
+     * 将子位置打包为 long，布局与 {@code ExpandableListView.getPackedPositionForChild(int, int)} 相同
+     *
+     * @param groupPos 子项所在组的位置
+     * @param childPos 子项在组内的位置
+     * @return 打包后的位置
+     */
+    public static long packChildPosition(int groupPos, int childPos) {
+        return PACKED_POSITION_MASK_TYPE
+                | (((long) groupPos << PACKED_POSITION_SHIFT_GROUP) & PACKED_POSITION_MASK_GROUP)
+                | (childPos & PACKED_POSITION_MASK_CHILD);
+    }
+
+    /**
+     * @param packedPosition 由 {@link #packGroupPosition(int)} 或 {@link #packChildPosition(int, int)} 打包的位置
+     * @return {@link #CHILD} 或 {@link #GROUP}
+     */
+    public static int getPackedPositionType(long packedPosition) {
+        return (packedPosition & PACKED_POSITION_MASK_TYPE) != 0 ? CHILD : GROUP;
+    }
+
+    /**
+     * @param packedPosition 由 {@link #packGroupPosition(int)} 或 {@link #packChildPosition(int, int)} 打包的位置
+     * @return 组的位置
+     */
+    public static int getPackedPositionGroup(long packedPosition) {
+        return (int) ((packedPosition & PACKED_POSITION_MASK_GROUP) >>> PACKED_POSITION_SHIFT_GROUP);
+    }
+
+    /**
+     * @param packedPosition 由 {@link #packGroupPosition(int)} 或 {@link #packChildPosition(int, int)} 打包的位置
+     * @return 子项在组内的位置，如果是组位置则返回 -1
+     */
+    public static int getPackedPositionChild(long packedPosition) {
+        if ((packedPosition & PACKED_POSITION_MASK_TYPE) == 0) {
+            return -1;
+        }
+        return (int) (packedPosition & PACKED_POSITION_MASK_CHILD);
+    }
+
+    static ExpandableListPosition obtainGroupPosition(int groupPosition) {
+        return obtain(GROUP, groupPosition, 0, 0);
+    }
+
+    static ExpandableListPosition obtainChildPosition(int groupPosition, int childPosition) {
+        return obtain(CHILD, groupPosition, childPosition, 0);
+    }
+
+    static ExpandableListPosition obtainPosition(long packedPosition) {
+        if (packedPosition == PACKED_POSITION_VALUE_NULL) {
+            return null;
+        }
+
+        ExpandableListPosition elp = getRecycledOrCreate();
+        elp.groupPos = getPackedPositionGroup(packedPosition);
+        if (getPackedPositionType(packedPosition) == CHILD) {
+            elp.type = CHILD;
+            elp.childPos = getPackedPositionChild(packedPosition);
+        } else {
+            elp.type = GROUP;
+        }
+        return elp;
+    }
+
+    public static ExpandableListPosition obtain(int type, int groupPos, int childPos,
+                                                int flatListPos) {
+        ExpandableListPosition elp = getRecycledOrCreate();
+        elp.type = type;
+        elp.groupPos = groupPos;
+        elp.childPos = childPos;
+        elp.flatListPos = flatListPos;
+        return elp;
+    }
+
+    private static ExpandableListPosition getRecycledOrCreate() {
+        Pool pool = sPool.get();
+        ExpandableListPosition elp = pool.pop();
+        if (elp == null) {
+            pool.stats.misses++;
+            return new ExpandableListPosition();
+        }
+        pool.stats.hits++;
+        elp.resetState();
+        return elp;
+    }
+
+    /**
+     * 除非您通过 ExpandableListPosition.obtain() 获得它，否则不要调用它。 PositionMetadata 将处理回收它自己的孩子。
+     * <p>
+     * 对象放回调用线程的回收池，池已满时直接丢弃
+     */
+    public void recycle() {
+        sPool.get().push(this);
+    }
+
+    /**
+     * 设置每个线程回收池的容量，已经超出新容量的池在下次回收时收缩
+     *
+     * @param capacity 每个线程最多缓存的对象数，0 表示不缓存
+     */
+    public static void setPoolCapacity(int capacity) {
+        if (capacity < 0) {
+            throw new IllegalArgumentException("capacity < 0: " + capacity);
+        }
+        sPoolCapacity = capacity;
+    }
+
+    public static int getPoolCapacity() {
+        return sPoolCapacity;
+    }
+
+    /**
+     * @return 所有线程中从回收池取到对象的次数
+     */
+    public static long getPoolHitCount() {
+        synchronized (sPoolStats) {
+            retireFinishedPoolStats();
+            long hits = sRetiredPoolHits;
+            for (int i = 0; i < sPoolStats.size(); i++) {
+                hits += sPoolStats.get(i).hits;
+            }
+            return hits - sPoolHitsBase;
+        }
+    }
+
+    /**
+     * @return 所有线程中回收池为空、需要新建对象的次数
+     */
+    public static long getPoolMissCount() {
+        synchronized (sPoolStats) {
+            retireFinishedPoolStats();
+            long misses = sRetiredPoolMisses;
+            for (int i = 0; i < sPoolStats.size(); i++) {
+                misses += sPoolStats.get(i).misses;
+            }
+            return misses - sPoolMissesBase;
+        }
+    }
+
+    /**
+     * 计数只由各自的线程写入，这里记下当前的总数作为基准，而不是去清零其他线程的计数
+     */
+    public static void resetPoolStats() {
+        synchronized (sPoolStats) {
+            sPoolHitsBase = 0;
+            sPoolMissesBase = 0;
+            sPoolHitsBase = getPoolHitCount();
+            sPoolMissesBase = getPoolMissCount();
+        }
+    }
+
+    /**
+     * 把已经结束的线程的计数累加到基数中并移除它们的条目。结束的线程不会再写入计数，累加之后不会遗漏。
+     * 调用时必须持有 {@link #sPoolStats} 的锁
+     */
+    private static void retireFinishedPoolStats() {
+        for (int i = sPoolStats.size() - 1; i >= 0; i--) {
+            PoolStats stats = sPoolStats.get(i);
+            if (!stats.isOwnerFinished()) {
+                continue;
+            }
+            sRetiredPoolHits += stats.hits;
+            sRetiredPoolMisses += stats.misses;
+            // 顺序无关，用最后一项填补空位
+            int last = sPoolStats.size() - 1;
+            sPoolStats.set(i, sPoolStats.get(last));
+            sPoolStats.remove(last);
+        }
+    }
+
+    /**
+     * 单个线程的命中统计，只由所属线程写入，volatile 保证读取统计的线程看到完整的值。
+     * 只弱引用所属线程，不会阻止线程被回收
+     */
+    private static final class PoolStats {
+        private final WeakReference<Thread> owner = new WeakReference<>(Thread.currentThread());
+        volatile long hits;
+        volatile long misses;
+
+        boolean isOwnerFinished() {
+            Thread thread = owner.get();
+            return thread == null || !thread.isAlive();
+        }
+    }
+
+    /**
+     * 只被所属线程访问的数组栈，获取和回收都是 O(1)
+     */
+    private static final class Pool {
+        final PoolStats stats = new PoolStats();
+        private ExpandableListPosition[] items = new ExpandableListPosition[DEFAULT_POOL_CAPACITY];
+        private int size;
+
+        ExpandableListPosition pop() {
+            if (size == 0) {
+                return null;
+            }
+            ExpandableListPosition elp = items[--size];
+            items[size] = null;
+            elp.pooled = false;
+            return elp;
+        }
+
+        void push(ExpandableListPosition elp) {
+            int capacity = sPoolCapacity;
+            if (size > capacity) {
+                // 容量被调小，丢弃多余的对象
+                Arrays.fill(items, capacity, size, null);
+                size = capacity;
+            }
+            if (size == capacity) {
+                return;
+            }
+            if (elp.pooled) {
+                // 重复回收同一个对象会让它被两处同时持有
+                return;
+            }
+            if (size == items.length) {
+                items = Arrays.copyOf(items, Math.min(capacity, items.length * 2));
+            }
+            elp.pooled = true;
+            items[size++] = elp;
+        }
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+
+        ExpandableListPosition that = (ExpandableListPosition) o;
+
+        if (groupPos != that.groupPos) return false;
+        if (childPos != that.childPos) return false;
+        if (flatListPos != that.flatListPos) return false;
+        return type == that.type;
+
+    }
+
+    @Override
+    public int hashCode() {
+        int result = groupPos;
+        result = 31 * result + childPos;
+        result = 31 * result + flatListPos;
+        result = 31 * result + type;
+        return result;
+    }
+
+    @Override
+    public String toString() {
+        return "ExpandableListPosition{" +
+                "groupPos=" + groupPos +
+                ", childPos=" + childPos +
+                ", flatListPos=" + flatListPos +
+                ", type=" + type +
+                '}';
+    }
+}
+
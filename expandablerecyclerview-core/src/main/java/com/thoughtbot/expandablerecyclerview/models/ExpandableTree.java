@@ -0,0 +1,225 @@
+package com.thoughtbot.expandablerecyclerview.models;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 任意层级的可展开树，{@link ExpandableListModel} 的多级版本。
+ * <p>
+ * 每个有子节点的节点持有按子节点排列的前缀和索引（子树可见行数），因此：
+ * <li> 平面位置 → 节点：从根逐层在索引上下降，O(depth · log 分支数)，总计不超过 O(depth + log n) 级别
+ * <li> 节点 → 平面位置：沿父节点上行累加前缀和，O(depth · log 分支数)
+ * <li> 展开/折叠：只更新祖先链上的计数，O(depth · log n)，遇到折叠的祖先即停止
+ *
+ * @param <T> 节点携带的数据类型
+ */
+public class ExpandableTree<T> {
+
+    /**
+     * 虚拟根节点，始终展开且不占可见行，其子节点就是顶层节点
+     */
+    private final TreeNode<T> root;
+
+    /**
+     * 每次展开状态变化时递增
+     */
+    private int modCount;
+
+    /**
+     * 以 O(n) 建立所有节点的索引，节点初始都是折叠的
+     *
+     * @param roots 顶层节点
+     */
+    public ExpandableTree(List<TreeNode<T>> roots) {
+        root = new TreeNode<>(null, roots);
+        root.depth = -1;
+        root.expanded = true;
+        buildIndexes();
+    }
+
+    private void buildIndexes() {
+        // 按层序收集节点，逆序处理即可保证子节点先于父节点计算
+        List<TreeNode<T>> nodes = new ArrayList<>();
+        nodes.add(root);
+        for (int i = 0; i < nodes.size(); i++) {
+            TreeNode<T> node = nodes.get(i);
+            for (TreeNode<T> child : node.children()) {
+                child.depth = node.depth + 1;
+                nodes.add(child);
+            }
+        }
+        int[] counts = new int[0];
+        for (int i = nodes.size() - 1; i >= 0; i--) {
+            TreeNode<T> node = nodes.get(i);
+            List<TreeNode<T>> children = node.children();
+            int size = children.size();
+            if (size == 0) {
+                node.childIndex = null;
+                continue;
+            }
+            if (counts.length < size) {
+                counts = new int[size];
+            }
+            for (int j = 0; j < size; j++) {
+                counts[j] = children.get(j).getVisibleCount();
+            }
+            node.childIndex = new FlatPositionIndex();
+            node.childIndex.rebuild(counts, size);
+        }
+    }
+
+    /**
+     * @return 顶层节点
+     */
+    public List<TreeNode<T>> getRoots() {
+        return root.getChildren();
+    }
+
+    /**
+     * @return 总可见行数，O(1)
+     */
+    public int getVisibleItemCount() {
+        return root.childIndex == null ? 0 : root.childIndex.total();
+    }
+
+    /**
+     * @return 修改计数，展开状态每变化一次就会改变
+     */
+    public int getModificationCount() {
+        return modCount;
+    }
+
+    /**
+     * @param flatPos 平面列表位置
+     * @return 该位置上的节点
+     */
+    public TreeNode<T> getNodeAt(int flatPos) {
+        if (flatPos < 0 || flatPos >= getVisibleItemCount()) {
+            throw new IndexOutOfBoundsException("flatPos: " + flatPos + ", size: " + getVisibleItemCount());
+        }
+        TreeNode<T> node = root;
+        int remaining = flatPos;
+        while (true) {
+            int childIndex = node.childIndex.findGroup(remaining);
+            remaining -= node.childIndex.prefixSum(childIndex);
+            TreeNode<T> child = node.children().get(childIndex);
+            if (remaining == 0) {
+                return child;
+            }
+            // 跳过子节点本身所在的行，进入它的子树
+            remaining--;
+            node = child;
+        }
+    }
+
+    /**
+     * @param flatPos 平面列表位置
+     * @return 从顶层开始每一层的子节点索引，长度为节点深度 + 1
+     */
+    public int[] getPathAt(int flatPos) {
+        return getPath(getNodeAt(flatPos));
+    }
+
+    /**
+     * @param node 树中的节点
+     * @return 从顶层开始每一层的子节点索引，长度为节点深度 + 1
+     */
+    public int[] getPath(TreeNode<T> node) {
+        int[] path = new int[node.depth + 1];
+        for (TreeNode<T> n = node; n.parent != null; n = n.parent) {
+            path[n.depth] = n.indexInParent;
+        }
+        return path;
+    }
+
+    /**
+     * @param path 从顶层开始每一层的子节点索引
+     * @return 路径指向的节点
+     */
+    public TreeNode<T> getNode(int[] path) {
+        TreeNode<T> node = root;
+        for (int childIndex : path) {
+            node = node.children().get(childIndex);
+        }
+        return node;
+    }
+
+    /**
+     * @param node 树中的节点
+     * @return 节点的平面位置，如果某个祖先是折叠的（节点不可见）则返回 -1
+     */
+    public int getFlatPosition(TreeNode<T> node) {
+        int flatPos = 0;
+        for (TreeNode<T> n = node; n.parent != null; n = n.parent) {
+            TreeNode<T> parent = n.parent;
+            if (!parent.expanded) {
+                return -1;
+            }
+            flatPos += parent.childIndex.prefixSum(n.indexInParent);
+            if (parent != root) {
+                // 父节点本身所在的行
+                flatPos++;
+            }
+        }
+        return flatPos;
+    }
+
+    /**
+     * @param node 树中的节点
+     * @return 节点的所有祖先都展开时为 true
+     */
+    public boolean isVisible(TreeNode<T> node) {
+        for (TreeNode<T> n = node.parent; n != null; n = n.parent) {
+            if (!n.expanded) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * 展开或折叠节点，O(depth · log n)。折叠不会改变后代的展开状态，再次展开时恢复原样
+     *
+     * @param node     树中的节点
+     * @param expanded 新的展开状态
+     * @return 出现（展开）或消失（折叠）的可见行数，位于 {@link #getFlatPosition(TreeNode)} + 1 之后；
+     * 状态没有变化或节点本身不可见时返回 0
+     */
+    public int setExpanded(TreeNode<T> node, boolean expanded) {
+        if (node.expanded == expanded) {
+            return 0;
+        }
+        int before = node.getVisibleCount();
+        node.expanded = expanded;
+        int after = node.getVisibleCount();
+        modCount++;
+        updateAncestors(node);
+        return isVisible(node) ? Math.abs(after - before) : 0;
+    }
+
+    /**
+     * @param flatPos 节点的平面位置
+     * @return 切换之后节点是否展开
+     */
+    public boolean toggle(int flatPos) {
+        TreeNode<T> node = getNodeAt(flatPos);
+        setExpanded(node, !node.expanded);
+        return node.expanded;
+    }
+
+    /**
+     * 把节点可见行数的变化沿祖先链向上传递，遇到折叠的祖先时它自身的行数不再变化，传递停止
+     */
+    private void updateAncestors(TreeNode<T> node) {
+        TreeNode<T> child = node;
+        while (child.parent != null) {
+            TreeNode<T> parent = child.parent;
+            int before = parent.getVisibleCount();
+            parent.childIndex.setCount(child.indexInParent, child.getVisibleCount());
+            if (parent.getVisibleCount() == before) {
+                return;
+            }
+            child = parent;
+        }
+    }
+}
@@ -0,0 +1,200 @@
+package com.thoughtbot.expandablerecyclerview.models;
+
+import java.util.Arrays;
+
+/**
+ * 按组维护可见行数的前缀和索引（Fenwick 树），供 {@link ExpandableListModel} 在平面列表位置与组位置之间做 O(log n) 的换算。
+ * <p>
+ * 组 i 的可见行数：折叠时为 1（组标题），展开时为子项数 + 1。
+ */
+public class FlatPositionIndex {
+
+    private int size;
+    private int total;
+    private int highestBit;
+    private int[] counts = new int[0];
+    private int[] tree = new int[1];
+
+    /**
+     * 以给定的每组可见行数重建索引，O(n)
+     *
+     * @param visibleCounts 每组的可见行数，只读取前 {@code size} 项
+     * @param size          组数
+     */
+    public void rebuild(int[] visibleCounts, int size) {
+        if (counts.length < size) {
+            counts = new int[size];
+            tree = new int[size + 1];
+        }
+        this.size = size;
+        System.arraycopy(visibleCounts, 0, counts, 0, size);
+        rebuildTree();
+    }
+
+    private void rebuildTree() {
+        tree[0] = 0;
+        total = 0;
+        for (int i = 1; i <= size; i++) {
+            tree[i] = counts[i - 1];
+            total += tree[i];
+        }
+        for (int i = 1; i <= size; i++) {
+            int parent = i + (i & -i);
+            if (parent <= size) {
+                tree[parent] += tree[i];
+            }
+        }
+        highestBit = size == 0 ? 0 : Integer.highestOneBit(size);
+    }
+
+    /**
+     * @return 索引中的组数
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * @return 所有组的可见行数之和，随 {@link #setCount(int, int)} 增量维护，O(1)
+     */
+    public int total() {
+        return total;
+    }
+
+    /**
+     * @param groupIndex 组的索引
+     * @return 该组当前的可见行数
+     */
+    public int getCount(int groupIndex) {
+        return counts[groupIndex];
+    }
+
+    /**
+     * 更新单个组的可见行数，O(log n)
+     *
+     * @param groupIndex 组的索引
+     * @param count      该组新的可见行数
+     */
+    public void setCount(int groupIndex, int count) {
+        int delta = count - counts[groupIndex];
+        if (delta == 0) {
+            return;
+        }
+        counts[groupIndex] = count;
+        total += delta;
+        for (int i = groupIndex + 1; i <= size; i += i & -i) {
+            tree[i] += delta;
+        }
+    }
+
+    /**
+     * 在 {@code groupIndex} 处插入一个组。只有其后的组在树中的节点需要重算：
+     * 插入点靠近末尾时（例如追加）逐个以 O(log n) 重算，否则平移后整体重建，O(n)
+     *
+     * @param groupIndex 新组的索引，可以等于 {@link #size()}
+     * @param count      新组的可见行数
+     */
+    public void insert(int groupIndex, int count) {
+        if (counts.length == size) {
+            int capacity = Math.max(size * 2, 8);
+            counts = Arrays.copyOf(counts, capacity);
+            tree = Arrays.copyOf(tree, capacity + 1);
+        }
+        System.arraycopy(counts, groupIndex, counts, groupIndex + 1, size - groupIndex);
+        counts[groupIndex] = count;
+        size++;
+        total += count;
+        rebuildFrom(groupIndex);
+    }
+
+    /**
+     * 删除 {@code groupIndex} 处的组，与 {@link #insert(int, int)} 一样只重算其后的节点
+     *
+     * @param groupIndex 要删除的组的索引
+     */
+    public void remove(int groupIndex) {
+        total -= counts[groupIndex];
+        System.arraycopy(counts, groupIndex + 1, counts, groupIndex, size - groupIndex - 1);
+        size--;
+        rebuildFrom(groupIndex);
+    }
+
+    /**
+     * 重算索引 {@code groupIndex} 及之后的组对应的树节点，之前的节点只覆盖未变化的组，保持不变
+     */
+    private void rebuildFrom(int groupIndex) {
+        int log = 32 - Integer.numberOfLeadingZeros(size);
+        if ((long) (size - groupIndex) * log >= size) {
+            rebuildTree();
+            return;
+        }
+        // 按升序重算：节点 i 覆盖组 [i - lowbit(i), i)，计算所需的前缀和只用到比 i 小的节点
+        for (int i = groupIndex + 1; i <= size; i++) {
+            int low = i - (i & -i);
+            tree[i] = prefixSum(i - 1) - prefixSum(low) + counts[i - 1];
+        }
+        highestBit = size == 0 ? 0 : Integer.highestOneBit(size);
+    }
+
+    /**
+     * 把组从 {@code fromIndex} 移动到 {@code toIndex}。只有两者之间的组的前缀和会变化：
+     * 跨越的组较少时逐个做 O(log n) 的点更新，否则平移后重建
+     *
+     * @param fromIndex 组原来的索引
+     * @param toIndex   组移动后的索引
+     */
+    public void move(int fromIndex, int toIndex) {
+        int distance = Math.abs(toIndex - fromIndex);
+        int log = 32 - Integer.numberOfLeadingZeros(size);
+        int moved = counts[fromIndex];
+        if ((long) distance * log < size) {
+            int step = toIndex > fromIndex ? 1 : -1;
+            for (int i = fromIndex; i != toIndex; i += step) {
+                setCount(i, counts[i + step]);
+            }
+            setCount(toIndex, moved);
+            return;
+        }
+        if (toIndex > fromIndex) {
+            System.arraycopy(counts, fromIndex + 1, counts, fromIndex, distance);
+        } else {
+            System.arraycopy(counts, toIndex, counts, toIndex + 1, distance);
+        }
+        counts[toIndex] = moved;
+        rebuildTree();
+    }
+
+    /**
+     * @param groupIndex 组的索引，可以等于 {@link #size()}
+     * @return 索引在 {@code groupIndex} 之前的所有组的可见行数之和，即该组标题的平面位置
+     */
+    public int prefixSum(int groupIndex) {
+        int sum = 0;
+        for (int i = Math.min(groupIndex, size); i > 0; i -= i & -i) {
+            sum += tree[i];
+        }
+        return sum;
+    }
+
+    /**
+     * 在前缀和上做二分（Fenwick 树的逐位下降），O(log n)
+     *
+     * @param flatPos 平面列表位置
+     * @return 包含 {@code flatPos} 的组的索引，如果 {@code flatPos} 超出范围则返回 -1
+     */
+    public int findGroup(int flatPos) {
+        if (flatPos < 0) {
+            return -1;
+        }
+        int pos = 0;
+        int remaining = flatPos;
+        for (int step = highestBit; step > 0; step >>= 1) {
+            int next = pos + step;
+            if (next <= size && tree[next] <= remaining) {
+                pos = next;
+                remaining -= tree[next];
+            }
+        }
+        return pos < size ? pos : -1;
+    }
+}
@@ -0,0 +1,158 @@
+package com.thoughtbot.expandablerecyclerview.models;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * 某一时刻展平后的列表的不可变快照：每个可见行的打包位置（见 {@link ExpandableListPosition#packGroupPosition(int)}），
+ * 以及每个组标题所在的行。
+ * <p>
+ * 构建为 O(可见行数)，可以在后台线程进行；构建之后按平面位置的查询都是数组读取。快照只引用组列表，
+ * 构建期间不能原地修改组列表或组内子项的数量。
+ */
+public final class FlattenedSnapshot {
+
+    /**
+     * {@link #build(List, PackedBitSet, int[][])} 中表示“组的所有子项都可见”的标记
+     */
+    public static final int[] ALL_CHILDREN = new int[0];
+
+    private final List<? extends ExpandableGroupModel> groups;
+    private final PackedBitSet expandedGroups;
+    private final int[][] visibleChildren;
+    private final long[] rows;
+    private final int[] groupPositions;
+
+    private FlattenedSnapshot(List<? extends ExpandableGroupModel> groups, PackedBitSet expandedGroups,
+                              int[][] visibleChildren, long[] rows, int[] groupPositions) {
+        this.groups = groups;
+        this.expandedGroups = expandedGroups;
+        this.visibleChildren = visibleChildren;
+        this.rows = rows;
+        this.groupPositions = groupPositions;
+    }
+
+    /**
+     * @param groups         组列表
+     * @param expandedGroups 与 {@code groups} 等长的展开状态，之后由快照持有，不能再修改
+     * @return 新的快照
+     */
+    public static FlattenedSnapshot build(List<? extends ExpandableGroupModel> groups,
+                                          PackedBitSet expandedGroups) {
+        return build(groups, expandedGroups, null);
+    }
+
+    /**
+     * 构建只包含部分组和子项的快照，例如过滤的结果
+     *
+     * @param groups          组列表
+     * @param expandedGroups  与 {@code groups} 等长的展开状态，之后由快照持有，不能再修改
+     * @param visibleChildren 为 null 时所有组和子项都可见；否则每组一项：null 表示整个组隐藏，
+     *                        {@link #ALL_CHILDREN} 表示所有子项可见，其余为升序的可见子项索引。之后由快照持有，不能再修改
+     * @return 新的快照
+     */
+    public static FlattenedSnapshot build(List<? extends ExpandableGroupModel> groups,
+                                          PackedBitSet expandedGroups, int[][] visibleChildren) {
+        int groupCount = groups.size();
+        int[] itemCounts = new int[groupCount];
+        int rowCount = 0;
+        for (int i = 0; i < groupCount; i++) {
+            if (visibleChildren != null && visibleChildren[i] == null) {
+                continue;
+            }
+            rowCount++;
+            if (expandedGroups.get(i)) {
+                int itemCount = groups.get(i).getItemCount();
+                if (visibleChildren == null || visibleChildren[i] == ALL_CHILDREN) {
+                    itemCounts[i] = itemCount;
+                } else {
+                    // 过滤之后组内子项可能已经减少，只保留仍然存在的子项
+                    int found = Arrays.binarySearch(visibleChildren[i], itemCount);
+                    itemCounts[i] = found >= 0 ? found : -found - 1;
+                }
+                rowCount += itemCounts[i];
+            }
+        }
+        long[] rows = new long[rowCount];
+        int[] groupPositions = new int[groupCount];
+        int row = 0;
+        for (int i = 0; i < groupCount; i++) {
+            if (visibleChildren != null && visibleChildren[i] == null) {
+                groupPositions[i] = -1;
+                continue;
+            }
+            groupPositions[i] = row;
+            rows[row++] = ExpandableListPosition.packGroupPosition(i);
+            int[] children = visibleChildren == null || visibleChildren[i] == ALL_CHILDREN
+                    ? null : visibleChildren[i];
+            for (int j = 0; j < itemCounts[i]; j++) {
+                rows[row++] = ExpandableListPosition.packChildPosition(i, children == null ? j : children[j]);
+            }
+        }
+        return new FlattenedSnapshot(groups, expandedGroups, visibleChildren, rows, groupPositions);
+    }
+
+    /**
+     * @return 快照对应的组列表
+     */
+    public List<? extends ExpandableGroupModel> getGroups() {
+        return groups;
+    }
+
+    /**
+     * @return 可见行数
+     */
+    public int size() {
+        return rows.length;
+    }
+
+    /**
+     * @param flatPos 平面列表位置
+     * @return 该行的打包位置，O(1)
+     */
+    public long getPackedPosition(int flatPos) {
+        return rows[flatPos];
+    }
+
+    /**
+     * @param groupIndex 组的索引
+     * @return 组标题的平面位置，O(1)；组在快照中隐藏时返回 -1
+     */
+    public int getFlattenedGroupIndex(int groupIndex) {
+        return groupPositions[groupIndex];
+    }
+
+    /**
+     * @param groupIndex 组的索引
+     * @return 构建快照时该组是否展开
+     */
+    public boolean isGroupExpanded(int groupIndex) {
+        return expandedGroups.get(groupIndex);
+    }
+
+    /**
+     * @param packedPosition 组或子项的打包位置，见 {@link ExpandableListPosition#packChildPosition(int, int)}
+     * @return 该行的平面位置，行不在快照中（组隐藏、折叠或子项被过滤掉）时返回 -1。子项在过滤结果中二分查找，其余 O(1)
+     */
+    public int getFlatPosition(long packedPosition) {
+        int groupIndex = ExpandableListPosition.getPackedPositionGroup(packedPosition);
+        if (groupIndex >= groupPositions.length) {
+            return -1;
+        }
+        int groupPosition = groupPositions[groupIndex];
+        if (groupPosition < 0
+                || ExpandableListPosition.getPackedPositionType(packedPosition) == ExpandableListPosition.GROUP) {
+            return groupPosition;
+        }
+        if (!expandedGroups.get(groupIndex)) {
+            return -1;
+        }
+        int childIndex = ExpandableListPosition.getPackedPositionChild(packedPosition);
+        int[] children = visibleChildren == null ? ALL_CHILDREN : visibleChildren[groupIndex];
+        if (children == ALL_CHILDREN) {
+            return childIndex < groups.get(groupIndex).getItemCount() ? groupPosition + 1 + childIndex : -1;
+        }
+        int found = Arrays.binarySearch(children, childIndex);
+        return found >= 0 ? groupPosition + 1 + found : -1;
+    }
+}
@@ -0,0 +1,335 @@
+package com.thoughtbot.expandablerecyclerview.models;
+
+import java.util.Arrays;
+
+/**
+ * 定长的位集合，每 64 位打包进一个 long，用于保存大量组的展开状态等布尔标记。
+ * <p>
+ * 与 {@code boolean[]} 相比占用 1/8 的内存，批量清除、计数等操作按字进行，为 O(n/64)。
+ * 不使用 {@link java.util.BitSet} 是因为它的 toLongArray/valueOf 需要 API 19。
+ */
+public class PackedBitSet {
+
+    private static final int ADDRESS_BITS_PER_WORD = 6;
+    private static final int BITS_PER_WORD = 1 << ADDRESS_BITS_PER_WORD;
+    private static final long WORD_MASK = 0xFFFFFFFFFFFFFFFFL;
+
+    private long[] words;
+    private int size;
+
+    /**
+     * @param size 位的个数，全部初始化为 false
+     */
+    public PackedBitSet(int size) {
+        this.size = size;
+        words = new long[wordCount(size)];
+    }
+
+    private PackedBitSet(long[] words, int size) {
+        this.words = words;
+        this.size = size;
+    }
+
+    /**
+     * @param words 由 {@link #toWords()} 得到的字数组，长度可以小于 {@code size} 所需的字数（末尾的 0 被省略）
+     * @param size  位的个数
+     * @return 新的 {@link PackedBitSet}
+     */
+    public static PackedBitSet fromWords(long[] words, int size) {
+        long[] copy = Arrays.copyOf(words, wordCount(size));
+        PackedBitSet bits = new PackedBitSet(copy, size);
+        bits.clearUnusedBits();
+        return bits;
+    }
+
+    /**
+     * @param values 每一位的值
+     * @return 新的 {@link PackedBitSet}
+     */
+    public static PackedBitSet fromBooleanArray(boolean[] values) {
+        PackedBitSet bits = new PackedBitSet(values.length);
+        for (int i = 0; i < values.length; i++) {
+            if (values[i]) {
+                bits.set(i);
+            }
+        }
+        return bits;
+    }
+
+    private static int wordCount(int size) {
+        return (size + BITS_PER_WORD - 1) >>> ADDRESS_BITS_PER_WORD;
+    }
+
+    /**
+     * @return 位的个数
+     */
+    public int size() {
+        return size;
+    }
+
+    public boolean get(int index) {
+        checkIndex(index);
+        return (words[index >>> ADDRESS_BITS_PER_WORD] & (1L << index)) != 0;
+    }
+
+    public void set(int index) {
+        checkIndex(index);
+        words[index >>> ADDRESS_BITS_PER_WORD] |= 1L << index;
+    }
+
+    public void clear(int index) {
+        checkIndex(index);
+        words[index >>> ADDRESS_BITS_PER_WORD] &= ~(1L << index);
+    }
+
+    public void set(int index, boolean value) {
+        if (value) {
+            set(index);
+        } else {
+            clear(index);
+        }
+    }
+
+    /**
+     * 把所有位设为 true，O(n/64)
+     */
+    public void setAll() {
+        Arrays.fill(words, WORD_MASK);
+        clearUnusedBits();
+    }
+
+    /**
+     * 把所有位设为 false，O(n/64)
+     */
+    public void clearAll() {
+        Arrays.fill(words, 0L);
+    }
+
+    /**
+     * @return 值为 true 的位数，按字 popcount，O(n/64)
+     */
+    public int cardinality() {
+        int count = 0;
+        for (long word : words) {
+            count += Long.bitCount(word);
+        }
+        return count;
+    }
+
+    /**
+     * @param fromIndex 起始位置（包含）
+     * @param toIndex   结束位置（不包含）
+     * @return {@code [fromIndex, toIndex)} 内值为 true 的位数，O((toIndex - fromIndex)/64)
+     */
+    public int cardinality(int fromIndex, int toIndex) {
+        if (fromIndex < 0 || toIndex > size || fromIndex > toIndex) {
+            throw new IndexOutOfBoundsException("fromIndex: " + fromIndex + ", toIndex: " + toIndex);
+        }
+        if (fromIndex == toIndex) {
+            return 0;
+        }
+        int startWord = fromIndex >>> ADDRESS_BITS_PER_WORD;
+        int endWord = (toIndex - 1) >>> ADDRESS_BITS_PER_WORD;
+        long firstMask = WORD_MASK << fromIndex;
+        long lastMask = WORD_MASK >>> -toIndex;
+        if (startWord == endWord) {
+            return Long.bitCount(words[startWord] & firstMask & lastMask);
+        }
+        int count = Long.bitCount(words[startWord] & firstMask);
+        for (int i = startWord + 1; i < endWord; i++) {
+            count += Long.bitCount(words[i]);
+        }
+        return count + Long.bitCount(words[endWord] & lastMask);
+    }
+
+    /**
+     * @param other 另一个位集合，长度可以不同，缺少的位按 false 计算；为 null 时等同于全为 false
+     * @return 两者取值不同的位数，按字 XOR 后 popcount，O(n/64)
+     */
+    public int differenceCount(PackedBitSet other) {
+        if (other == null) {
+            return cardinality();
+        }
+        long[] a = words;
+        long[] b = other.words;
+        int common = Math.min(a.length, b.length);
+        int count = 0;
+        for (int i = 0; i < common; i++) {
+            count += Long.bitCount(a[i] ^ b[i]);
+        }
+        for (int i = common; i < a.length; i++) {
+            count += Long.bitCount(a[i]);
+        }
+        for (int i = common; i < b.length; i++) {
+            count += Long.bitCount(b[i]);
+        }
+        return count;
+    }
+
+    /**
+     * @param fromIndex 开始查找的位置（包含）
+     * @return 从 {@code fromIndex} 开始第一个值为 true 的位置，没有则返回 -1
+     */
+    public int nextSetBit(int fromIndex) {
+        if (fromIndex >= size) {
+            return -1;
+        }
+        int wordIndex = fromIndex >>> ADDRESS_BITS_PER_WORD;
+        long word = words[wordIndex] & (WORD_MASK << fromIndex);
+        while (true) {
+            if (word != 0) {
+                int index = (wordIndex << ADDRESS_BITS_PER_WORD) + Long.numberOfTrailingZeros(word);
+                return index < size ? index : -1;
+            }
+            if (++wordIndex == words.length) {
+                return -1;
+            }
+            word = words[wordIndex];
+        }
+    }
+
+    /**
+     * @param fromIndex 开始查找的位置（包含）
+     * @return 从 {@code fromIndex} 开始第一个值为 false 的位置，没有则返回 -1
+     */
+    public int nextClearBit(int fromIndex) {
+        if (fromIndex >= size) {
+            return -1;
+        }
+        int wordIndex = fromIndex >>> ADDRESS_BITS_PER_WORD;
+        long word = ~words[wordIndex] & (WORD_MASK << fromIndex);
+        while (true) {
+            if (word != 0) {
+                int index = (wordIndex << ADDRESS_BITS_PER_WORD) + Long.numberOfTrailingZeros(word);
+                return index < size ? index : -1;
+            }
+            if (++wordIndex == words.length) {
+                return -1;
+            }
+            word = ~words[wordIndex];
+        }
+    }
+
+    /**
+     * 改变位的个数，保留 {@code [0, min(size, newSize))} 内的值，新增的位为 false
+     *
+     * @param newSize 新的位数
+     */
+    public void resize(int newSize) {
+        int newWordCount = wordCount(newSize);
+        if (newWordCount != words.length) {
+            words = Arrays.copyOf(words, newWordCount);
+        }
+        size = newSize;
+        clearUnusedBits();
+    }
+
+    /**
+     * 在 {@code index} 处插入一位，原来 {@code index} 及之后的位整体后移一位，按字移位，O(n/64)
+     *
+     * @param index 插入的位置，可以等于 {@link #size()}
+     * @param value 新位的值
+     */
+    public void insert(int index, boolean value) {
+        if (index < 0 || index > size) {
+            throw new IndexOutOfBoundsException("index: " + index + ", size: " + size);
+        }
+        resize(size + 1);
+        int wordIndex = index >>> ADDRESS_BITS_PER_WORD;
+        for (int i = words.length - 1; i > wordIndex; i--) {
+            words[i] = words[i] << 1 | words[i - 1] >>> (BITS_PER_WORD - 1);
+        }
+        long word = words[wordIndex];
+        long lowMask = (1L << index) - 1;
+        words[wordIndex] = word & lowMask | (word & ~lowMask) << 1;
+        set(index, value);
+        clearUnusedBits();
+    }
+
+    /**
+     * 删除 {@code index} 处的一位，之后的位整体前移一位，按字移位，O(n/64)
+     *
+     * @param index 删除的位置
+     */
+    public void remove(int index) {
+        checkIndex(index);
+        int wordIndex = index >>> ADDRESS_BITS_PER_WORD;
+        long word = words[wordIndex];
+        long lowMask = (1L << index) - 1;
+        words[wordIndex] = word & lowMask | word >>> 1 & ~lowMask;
+        for (int i = wordIndex + 1; i < words.length; i++) {
+            words[i - 1] |= words[i] << (BITS_PER_WORD - 1);
+            words[i] >>>= 1;
+        }
+        resize(size - 1);
+    }
+
+    /**
+     * 把 {@code fromIndex} 处的位移动到 {@code toIndex}，两者之间的位依次补位，O(n/64)
+     *
+     * @param fromIndex 原位置
+     * @param toIndex   移动后的位置
+     */
+    public void move(int fromIndex, int toIndex) {
+        checkIndex(toIndex);
+        boolean value = get(fromIndex);
+        remove(fromIndex);
+        insert(toIndex, value);
+    }
+
+    /**
+     * @return 当前内容的紧凑字数组表示，末尾值为 0 的字被省略，配合 {@link #fromWords(long[], int)} 使用
+     */
+    public long[] toWords() {
+        int length = words.length;
+        while (length > 0 && words[length - 1] == 0) {
+            length--;
+        }
+        return Arrays.copyOf(words, length);
+    }
+
+    /**
+     * @return 与当前内容相同的 {@code boolean[]}
+     */
+    public boolean[] toBooleanArray() {
+        boolean[] values = new boolean[size];
+        for (int i = nextSetBit(0); i >= 0; i = nextSetBit(i + 1)) {
+            values[i] = true;
+        }
+        return values;
+    }
+
+    /**
+     * @return 内容相同的独立副本
+     */
+    public PackedBitSet copy() {
+        return new PackedBitSet(words.clone(), size);
+    }
+
+    private void clearUnusedBits() {
+        if (words.length > 0 && (size & (BITS_PER_WORD - 1)) != 0) {
+            words[words.length - 1] &= WORD_MASK >>> -size;
+        }
+    }
+
+    private void checkIndex(int index) {
+        if (index < 0 || index >= size) {
+            throw new IndexOutOfBoundsException("index: " + index + ", size: " + size);
+        }
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+
+        PackedBitSet that = (PackedBitSet) o;
+
+        return size == that.size && Arrays.equals(words, that.words);
+    }
+
+    @Override
+    public int hashCode() {
+        return 31 * size + Arrays.hashCode(words);
+    }
+}
@@ -0,0 +1,118 @@
+package com.thoughtbot.expandablerecyclerview.models;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * {@link ExpandableTree} 中的节点，任意节点都可以展开。
+ * <p>
+ * 有子节点的节点持有一个按子节点排列的 {@link FlatPositionIndex}，记录每个子节点子树当前的可见行数，
+ * 由 {@link ExpandableTree} 维护。
+ *
+ * @param <T> 节点携带的数据类型
+ */
+public final class TreeNode<T> {
+
+    private final T value;
+    private final List<TreeNode<T>> children;
+    private final List<TreeNode<T>> unmodifiableChildren;
+
+    TreeNode<T> parent;
+    int indexInParent;
+    int depth;
+    boolean expanded;
+
+    /**
+     * 每个子节点子树的可见行数，没有子节点时为 null
+     */
+    FlatPositionIndex childIndex;
+
+    public TreeNode(T value) {
+        this(value, Collections.<TreeNode<T>>emptyList());
+    }
+
+    /**
+     * @param value    节点数据
+     * @param children 子节点，每个节点只能属于一个父节点
+     */
+    public TreeNode(T value, List<TreeNode<T>> children) {
+        this.value = value;
+        this.children = new ArrayList<>(children);
+        unmodifiableChildren = Collections.unmodifiableList(this.children);
+        for (int i = 0; i < this.children.size(); i++) {
+            TreeNode<T> child = this.children.get(i);
+            if (child.parent != null) {
+                throw new IllegalArgumentException("Node already has a parent: " + child);
+            }
+            child.parent = this;
+            child.indexInParent = i;
+        }
+    }
+
+    public T getValue() {
+        return value;
+    }
+
+    /**
+     * @return 父节点，顶层节点返回 null
+     */
+    public TreeNode<T> getParent() {
+        return parent != null && parent.parent != null ? parent : null;
+    }
+
+    public List<TreeNode<T>> getChildren() {
+        return unmodifiableChildren;
+    }
+
+    public int getChildCount() {
+        return children.size();
+    }
+
+    public TreeNode<T> getChild(int index) {
+        return children.get(index);
+    }
+
+    /**
+     * @return 在父节点（或顶层节点列表）中的索引
+     */
+    public int getIndexInParent() {
+        return indexInParent;
+    }
+
+    /**
+     * @return 深度，顶层节点为 0
+     */
+    public int getDepth() {
+        return depth;
+    }
+
+    public boolean isExpanded() {
+        return expanded;
+    }
+
+    public boolean isLeaf() {
+        return children.isEmpty();
+    }
+
+    /**
+     * @return 本节点及其展开的后代占用的可见行数，O(1)
+     */
+    int getVisibleCount() {
+        return expanded && childIndex != null ? childIndex.total() + 1 : 1;
+    }
+
+    List<TreeNode<T>> children() {
+        return children;
+    }
+
+    @Override
+    public String toString() {
+        return "TreeNode{" +
+                "value=" + value +
+                ", depth=" + depth +
+                ", expanded=" + expanded +
+                ", childCount=" + children.size() +
+                '}';
+    }
+}
@@ -0,0 +1,59 @@
+package com.thoughtbot.expandablerecyclerview.models;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+public class ExpandableListPositionTest {
+
+    @Test
+    public void groupPositionRoundTrip() {
+        long packed = ExpandableListPosition.packGroupPosition(Integer.MAX_VALUE);
+
+        assertEquals(ExpandableListPosition.GROUP, ExpandableListPosition.getPackedPositionType(packed));
+        assertEquals(Integer.MAX_VALUE, ExpandableListPosition.getPackedPositionGroup(packed));
+        assertEquals(-1, ExpandableListPosition.getPackedPositionChild(packed));
+    }
+
+    @Test
+    public void childPositionRoundTrip() {
+        long packed = ExpandableListPosition.packChildPosition(7, Integer.MAX_VALUE);
+
+        assertEquals(ExpandableListPosition.CHILD, ExpandableListPosition.getPackedPositionType(packed));
+        assertEquals(7, ExpandableListPosition.getPackedPositionGroup(packed));
+        assertEquals(Integer.MAX_VALUE, ExpandableListPosition.getPackedPositionChild(packed));
+    }
+
+    @Test
+    public void layoutMatchesExpandableListView() {
+        // 与 ExpandableListView.getPackedPositionForGroup/ForChild 的结果相同
+        assertEquals(0x0000000300000000L, ExpandableListPosition.packGroupPosition(3));
+        assertEquals(0x8000000300000005L, ExpandableListPosition.packChildPosition(3, 5));
+    }
+
+    @Test
+    public void obtainPositionDecodesPackedPosition() {
+        ExpandableListPosition position =
+                ExpandableListPosition.obtainPosition(ExpandableListPosition.packChildPosition(2, 4));
+
+        assertEquals(ExpandableListPosition.CHILD, position.type);
+        assertEquals(2, position.groupPos);
+        assertEquals(4, position.childPos);
+        assertEquals(ExpandableListPosition.packChildPosition(2, 4), position.getPackedPosition());
+        position.recycle();
+        assertNull(ExpandableListPosition.obtainPosition(ExpandableListPosition.PACKED_POSITION_VALUE_NULL));
+    }
+
+    @Test
+    public void recycledPositionIsReset() {
+        ExpandableListPosition.obtainChildPosition(5, 6).recycle();
+
+        ExpandableListPosition position = ExpandableListPosition.obtainGroupPosition(1);
+
+        assertEquals(ExpandableListPosition.GROUP, position.type);
+        assertEquals(1, position.groupPos);
+        assertEquals(0, position.childPos);
+        position.recycle();
+    }
+}
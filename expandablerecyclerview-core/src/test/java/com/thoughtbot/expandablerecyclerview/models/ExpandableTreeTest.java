@@ -0,0 +1,107 @@
+package com.thoughtbot.expandablerecyclerview.models;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+
+public class ExpandableTreeTest {
+
+    private TreeNode<String> a;
+    private TreeNode<String> a1;
+    private TreeNode<String> a1x;
+    private TreeNode<String> a2;
+    private TreeNode<String> b;
+    private ExpandableTree<String> tree;
+
+    /**
+     * a
+     * ├─ a1
+     * │  └─ a1x
+     * └─ a2
+     * b
+     */
+    @Before
+    public void setUp() {
+        a1x = new TreeNode<>("a1x");
+        a1 = node("a1", a1x);
+        a2 = new TreeNode<>("a2");
+        a = node("a", a1, a2);
+        b = new TreeNode<>("b");
+        tree = new ExpandableTree<>(Arrays.asList(a, b));
+    }
+
+    @SafeVarargs
+    private static TreeNode<String> node(String value, TreeNode<String>... children) {
+        return new TreeNode<>(value, Arrays.asList(children));
+    }
+
+    @Test
+    public void onlyTopLevelNodesAreVisibleInitially() {
+        assertEquals(2, tree.getVisibleItemCount());
+        assertSame(a, tree.getNodeAt(0));
+        assertSame(b, tree.getNodeAt(1));
+        assertEquals(-1, tree.getFlatPosition(a1));
+    }
+
+    @Test
+    public void getNodeAtFollowsExpandedSubtrees() {
+        tree.setExpanded(a, true);
+        tree.setExpanded(a1, true);
+
+        assertEquals(Arrays.asList(a, a1, a1x, a2, b), visibleNodes());
+        for (int i = 0; i < tree.getVisibleItemCount(); i++) {
+            assertEquals(i, tree.getFlatPosition(tree.getNodeAt(i)));
+        }
+        assertArrayEquals(new int[]{0, 0, 0}, tree.getPathAt(2));
+        assertArrayEquals(new int[]{0, 1}, tree.getPathAt(3));
+        assertSame(a2, tree.getNode(new int[]{0, 1}));
+    }
+
+    @Test
+    public void setExpandedReturnsChangedRowCount() {
+        assertEquals(2, tree.setExpanded(a, true));
+        assertEquals(1, tree.setExpanded(a1, true));
+        // 折叠 a 时 a1 的子树一起隐藏
+        assertEquals(3, tree.setExpanded(a, false));
+        assertEquals(0, tree.setExpanded(a, false));
+    }
+
+    @Test
+    public void expandUnderCollapsedAncestorDoesNotChangeVisibleRows() {
+        assertEquals(0, tree.setExpanded(a1, true));
+
+        assertEquals(2, tree.getVisibleItemCount());
+        assertSame(b, tree.getNodeAt(1));
+        // 展开祖先时恢复已经展开的后代
+        assertEquals(3, tree.setExpanded(a, true));
+        assertEquals(Arrays.asList(a, a1, a1x, a2, b), visibleNodes());
+    }
+
+    @Test
+    public void collapseUnderCollapsedAncestorIsRememberedForLaterExpand() {
+        tree.setExpanded(a, true);
+        tree.setExpanded(a1, true);
+        tree.setExpanded(a, false);
+
+        tree.setExpanded(a1, false);
+
+        assertEquals(2, tree.getVisibleItemCount());
+        assertEquals(2, tree.setExpanded(a, true));
+        assertEquals(Arrays.asList(a, a1, a2, b), visibleNodes());
+    }
+
+    private List<TreeNode<String>> visibleNodes() {
+        List<TreeNode<String>> nodes = new ArrayList<>();
+        for (int i = 0; i < tree.getVisibleItemCount(); i++) {
+            nodes.add(tree.getNodeAt(i));
+        }
+        return nodes;
+    }
+}
@@ -0,0 +1,92 @@
+package com.thoughtbot.expandablerecyclerview.models;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+
+public class FlatPositionIndexTest {
+
+    @Test
+    public void prefixSumAndFindGroup() {
+        FlatPositionIndex index = new FlatPositionIndex();
+        index.rebuild(new int[]{1, 3, 1, 2}, 4);
+
+        assertEquals(7, index.total());
+        assertEquals(0, index.prefixSum(0));
+        assertEquals(1, index.prefixSum(1));
+        assertEquals(4, index.prefixSum(2));
+        assertEquals(7, index.prefixSum(4));
+        assertEquals(0, index.findGroup(0));
+        assertEquals(1, index.findGroup(1));
+        assertEquals(1, index.findGroup(3));
+        assertEquals(2, index.findGroup(4));
+        assertEquals(3, index.findGroup(6));
+        assertEquals(-1, index.findGroup(7));
+    }
+
+    @Test
+    public void setCountUpdatesLaterPrefixSums() {
+        FlatPositionIndex index = new FlatPositionIndex();
+        index.rebuild(new int[]{1, 1, 1}, 3);
+
+        index.setCount(0, 4);
+
+        assertEquals(4, index.getCount(0));
+        assertEquals(4, index.prefixSum(1));
+        assertEquals(5, index.prefixSum(2));
+        assertEquals(6, index.total());
+        assertEquals(0, index.findGroup(3));
+        assertEquals(1, index.findGroup(4));
+    }
+
+    @Test
+    public void insertRemoveAndMoveMatchPlainList() {
+        Random random = new Random(8);
+        FlatPositionIndex index = new FlatPositionIndex();
+        List<Integer> counts = new ArrayList<>();
+        for (int i = 0; i < 5000; i++) {
+            int op = random.nextInt(4);
+            if (op == 0 || counts.isEmpty()) {
+                // 一半在末尾追加，一半插入到任意位置
+                int groupIndex = random.nextBoolean() ? counts.size() : random.nextInt(counts.size() + 1);
+                int count = 1 + random.nextInt(5);
+                counts.add(groupIndex, count);
+                index.insert(groupIndex, count);
+            } else if (op == 1) {
+                int groupIndex = random.nextInt(counts.size());
+                counts.remove(groupIndex);
+                index.remove(groupIndex);
+            } else if (op == 2) {
+                int from = random.nextInt(counts.size());
+                int to = random.nextInt(counts.size());
+                counts.add(to, counts.remove(from));
+                index.move(from, to);
+            } else {
+                int groupIndex = random.nextInt(counts.size());
+                int count = 1 + random.nextInt(5);
+                counts.set(groupIndex, count);
+                index.setCount(groupIndex, count);
+            }
+            assertMatches(counts, index);
+        }
+    }
+
+    private static void assertMatches(List<Integer> counts, FlatPositionIndex index) {
+        assertEquals(counts.size(), index.size());
+        int sum = 0;
+        for (int i = 0; i < counts.size(); i++) {
+            assertEquals(counts.get(i).intValue(), index.getCount(i));
+            assertEquals(sum, index.prefixSum(i));
+            for (int j = 0; j < counts.get(i); j++) {
+                assertEquals(i, index.findGroup(sum + j));
+            }
+            sum += counts.get(i);
+        }
+        assertEquals(sum, index.total());
+        assertEquals(-1, index.findGroup(sum));
+    }
+}
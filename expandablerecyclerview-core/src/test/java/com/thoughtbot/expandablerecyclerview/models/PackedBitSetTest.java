@@ -0,0 +1,114 @@
+package com.thoughtbot.expandablerecyclerview.models;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class PackedBitSetTest {
+
+    @Test
+    public void insertShiftsLaterBitsAcrossWords() {
+        PackedBitSet bits = new PackedBitSet(130);
+        bits.set(0);
+        bits.set(63);
+        bits.set(127);
+
+        bits.insert(1, true);
+
+        assertEquals(131, bits.size());
+        assertTrue(bits.get(0));
+        assertTrue(bits.get(1));
+        assertFalse(bits.get(63));
+        assertTrue(bits.get(64));
+        assertTrue(bits.get(128));
+        assertEquals(4, bits.cardinality());
+    }
+
+    @Test
+    public void removeShiftsLaterBitsAcrossWords() {
+        PackedBitSet bits = new PackedBitSet(130);
+        bits.set(64);
+        bits.set(129);
+
+        bits.remove(0);
+
+        assertEquals(129, bits.size());
+        assertTrue(bits.get(63));
+        assertTrue(bits.get(128));
+        assertEquals(2, bits.cardinality());
+    }
+
+    @Test
+    public void moveKeepsBitWithItsIndex() {
+        PackedBitSet bits = new PackedBitSet(100);
+        bits.set(2);
+
+        bits.move(2, 90);
+
+        assertFalse(bits.get(2));
+        assertTrue(bits.get(90));
+        bits.move(90, 0);
+        assertTrue(bits.get(0));
+        assertEquals(1, bits.cardinality());
+    }
+
+    @Test
+    public void insertRemoveAndMoveMatchPlainList() {
+        Random random = new Random(8);
+        PackedBitSet bits = new PackedBitSet(0);
+        List<Boolean> values = new ArrayList<>();
+        for (int i = 0; i < 3000; i++) {
+            int op = random.nextInt(3);
+            if (op == 0 || values.isEmpty()) {
+                int index = random.nextInt(values.size() + 1);
+                boolean value = random.nextBoolean();
+                values.add(index, value);
+                bits.insert(index, value);
+            } else if (op == 1) {
+                int index = random.nextInt(values.size());
+                values.remove(index);
+                bits.remove(index);
+            } else {
+                int from = random.nextInt(values.size());
+                int to = random.nextInt(values.size());
+                values.add(to, values.remove(from));
+                bits.move(from, to);
+            }
+            assertEquals(values.size(), bits.size());
+            int cardinality = 0;
+            for (int j = 0; j < values.size(); j++) {
+                assertEquals(values.get(j), bits.get(j));
+                cardinality += values.get(j) ? 1 : 0;
+            }
+            assertEquals(cardinality, bits.cardinality());
+        }
+    }
+
+    @Test
+    public void fromWordsRoundTrip() {
+        PackedBitSet bits = new PackedBitSet(200);
+        bits.set(3);
+        bits.set(70);
+
+        long[] words = bits.toWords();
+        // 末尾值为 0 的字被省略
+        assertEquals(2, words.length);
+        assertEquals(bits, PackedBitSet.fromWords(words, 200));
+    }
+
+    @Test
+    public void fromWordsClearsBitsBeyondSize() {
+        PackedBitSet bits = PackedBitSet.fromWords(new long[]{-1L, -1L}, 70);
+
+        assertEquals(70, bits.size());
+        assertEquals(70, bits.cardinality());
+        assertArrayEquals(new long[]{-1L, 0x3FL}, bits.toWords());
+    }
+}
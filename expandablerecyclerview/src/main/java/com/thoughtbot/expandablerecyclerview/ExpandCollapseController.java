@@ -4,6 +4,8 @@ import com.thoughtbot.expandablerecyclerview.listeners.ExpandCollapseListener;
 import com.thoughtbot.expandablerecyclerview.models.ExpandableGroup;
 import com.thoughtbot.expandablerecyclerview.models.ExpandableList;
 import com.thoughtbot.expandablerecyclerview.models.ExpandableListPosition;
+import java.util.Arrays;
+import java.util.Collection;
 
 /**
  * 此类位于支持 {@link ExpandableList} 和 {@link ExpandableRecyclerViewAdapter} 之间，并调解 {@link ExpandableGroup} 的展开和折叠
@@ -13,44 +15,150 @@ public class ExpandCollapseController {
   private ExpandCollapseListener listener;
   private ExpandableList expandableList;
 
+  private boolean accordionMode;
+  /**
+   * 手风琴模式下最近展开的组的索引，没有则为 -1。组被增删、移动或批量展开之后可能失效，使用前与模型核对
+   */
+  private int openGroupIndex = -1;
+
   public ExpandCollapseController(ExpandableList expandableList, ExpandCollapseListener listener) {
     this.expandableList = expandableList;
     this.listener = listener;
   }
 
+  /**
+   * 手风琴模式下同一时间最多只有一个组展开：展开一个组时，当前展开的组在同一批回调中被折叠。
+   * 开启时不会立即折叠已经展开的组，下一次展开时一并折叠
+   *
+   * @param accordionMode 是否开启手风琴模式
+   */
+  void setAccordionMode(boolean accordionMode) {
+    this.accordionMode = accordionMode;
+    openGroupIndex = -1;
+  }
+
+  boolean isAccordionMode() {
+    return accordionMode;
+  }
+
   /**
    * 收起群组
    *
-   * @param listPosition 要折叠的组的位置
+   * @param groupIndex 要折叠的组在 {@link ExpandableList#groups} 中的索引
    */
-  private void collapseGroup(ExpandableListPosition listPosition) {
-    expandableList.expandedGroupIndexes[listPosition.groupPos] = false;
+  private void collapseGroupAt(int groupIndex) {
+    expandableList.setGroupExpanded(groupIndex, false);
     if (listener != null) {
-      listener.onGroupCollapsed(expandableList.getFlattenedGroupIndex(listPosition) + 1,
-          expandableList.groups.get(listPosition.groupPos).getItemCount());
+      listener.onGroupCollapsed(expandableList.getFlattenedGroupIndex(groupIndex) + 1,
+          expandableList.groups.get(groupIndex).getItemCount());
     }
   }
 
   /**
    * 展开群组
    *
-   * @param listPosition 要展开的组
+   * @param groupIndex 要展开的组在 {@link ExpandableList#groups} 中的索引
    */
-  private void expandGroup(ExpandableListPosition listPosition) {
-    expandableList.expandedGroupIndexes[listPosition.groupPos] = true;
+  private void expandGroupAt(int groupIndex) {
+    if (accordionMode && expandExclusively(groupIndex)) {
+      return;
+    }
+    expandableList.setGroupExpanded(groupIndex, true);
     if (listener != null) {
-      listener.onGroupExpanded(expandableList.getFlattenedGroupIndex(listPosition) + 1,
-          expandableList.groups.get(listPosition.groupPos).getItemCount());
+      listener.onGroupExpanded(expandableList.getFlattenedGroupIndex(groupIndex) + 1,
+          expandableList.groups.get(groupIndex).getItemCount());
     }
   }
 
+  /**
+   * 展开 {@code groupIndex} 并折叠当前展开的组，两者按组索引升序在一次
+   * {@link ExpandCollapseListener#onGroupsExpandStateChanged(ExpandableList, int[], int)} 中回调，
+   * 通知的位置都按最终状态计算。记录的组仍然展开时为 O(log n)，否则扫描所有展开的组
+   *
+   * @param groupIndex 要展开的组在 {@link ExpandableList#groups} 中的索引
+   * @return 如果没有需要折叠的组，返回 false，由调用者按普通方式展开
+   */
+  private boolean expandExclusively(int groupIndex) {
+    int[] changed;
+    int count;
+    if (openGroupIndex >= 0 && openGroupIndex < expandableList.groups.size()
+        && expandableList.isGroupExpanded(openGroupIndex)) {
+      changed = new int[] {openGroupIndex};
+      count = 1;
+    } else {
+      changed = new int[4];
+      count = 0;
+      int expanded = expandableList.nextGroupWithExpandState(0, true);
+      while (expanded >= 0) {
+        if (count == changed.length) {
+          changed = Arrays.copyOf(changed, count * 2);
+        }
+        changed[count++] = expanded;
+        expanded = expandableList.nextGroupWithExpandState(expanded + 1, true);
+      }
+    }
+    openGroupIndex = groupIndex;
+    if (count == 0) {
+      return false;
+    }
+    expandableList.setGroupsExpanded(changed, count, false);
+    expandableList.setGroupExpanded(groupIndex, true);
+    // 把新展开的组按升序插入
+    int[] groupIndexes = new int[count + 1];
+    int insertAt = 0;
+    while (insertAt < count && changed[insertAt] < groupIndex) {
+      insertAt++;
+    }
+    System.arraycopy(changed, 0, groupIndexes, 0, insertAt);
+    groupIndexes[insertAt] = groupIndex;
+    System.arraycopy(changed, insertAt, groupIndexes, insertAt + 1, count - insertAt);
+    if (listener != null) {
+      listener.onGroupsExpandStateChanged(expandableList, groupIndexes, count + 1);
+    }
+    return true;
+  }
+
+  /**
+   * @param flatPos 列表中项目的展平位置
+   * @return 该位置所属组在 {@link ExpandableList#groups} 中的索引
+   */
+  private int getGroupIndex(int flatPos) {
+    return ExpandableListPosition.getPackedPositionGroup(
+        expandableList.getUnflattenedPackedPosition(flatPos));
+  }
+
+  /**
+   * 直接查组的索引，不经过平面位置：找不到的组换算成平面位置 0 后会被当成第一个组
+   */
+  private int requireGroupIndex(ExpandableGroup group) {
+    int groupIndex = expandableList.indexOfGroup(group);
+    if (groupIndex < 0) {
+      throw new IllegalArgumentException("Group is not in the list: " + group);
+    }
+    return groupIndex;
+  }
+
+  /**
+   * @param groupIndex 组在 {@link ExpandableList#groups} 中的索引
+   * @return false 如果组被展开，*after* 切换，如果组现在折叠，则为 true
+   */
+  boolean toggleGroupAt(int groupIndex) {
+    boolean expanded = expandableList.isGroupExpanded(groupIndex);
+    if (expanded) {
+      collapseGroupAt(groupIndex);
+    } else {
+      expandGroupAt(groupIndex);
+    }
+    return expanded;
+  }
+
   /**
    * @param group 正在检查其折叠状态的 {@link ExpandableGroup}
    * @return 如果 {@code group} 展开为真，如果折叠为假
    */
   public boolean isGroupExpanded(ExpandableGroup group) {
-    int groupIndex = expandableList.groups.indexOf(group);
-    return expandableList.expandedGroupIndexes[groupIndex];
+    int groupIndex = expandableList.indexOfGroup(group);
+    return expandableList.isGroupExpanded(groupIndex);
   }
 
   /**
@@ -58,8 +166,7 @@ public class ExpandCollapseController {
    * @return 如果 {@code group} 展开为真，如果折叠为假
    */
   public boolean isGroupExpanded(int flatPos) {
-    ExpandableListPosition listPosition = expandableList.getUnflattenedPosition(flatPos);
-    return expandableList.expandedGroupIndexes[listPosition.groupPos];
+    return expandableList.isGroupExpanded(getGroupIndex(flatPos));
   }
 
   /**
@@ -67,38 +174,24 @@ public class ExpandCollapseController {
    * @return false 如果组被展开，*after* 切换，如果组现在折叠，则为 true
    */
   public boolean toggleGroup(int flatPos) {
-    ExpandableListPosition listPos = expandableList.getUnflattenedPosition(flatPos);
-    boolean expanded = expandableList.expandedGroupIndexes[listPos.groupPos];
-    if (expanded) {
-      collapseGroup(listPos);
-    } else {
-      expandGroup(listPos);
-    }
-    return expanded;
+    return toggleGroupAt(getGroupIndex(flatPos));
   }
 
+  /**
+   * @throws IllegalArgumentException 如果 {@code group} 不在列表中
+   */
   public boolean toggleGroup(ExpandableGroup group) {
-    ExpandableListPosition listPos =
-        expandableList.getUnflattenedPosition(expandableList.getFlattenedGroupIndex(group));
-    boolean expanded = expandableList.expandedGroupIndexes[listPos.groupPos];
-    if (expanded) {
-      collapseGroup(listPos);
-    } else {
-      expandGroup(listPos);
-    }
-    return expanded;
+    return toggleGroupAt(requireGroupIndex(group));
   }
 
   /**
    * @param group 正在扩展的 {@link ExpandableGroup}
    */
   void expandGroup(ExpandableGroup group) {
-    ExpandableListPosition listPos =
-            expandableList.getUnflattenedPosition(expandableList.getFlattenedGroupIndex(group));
-    boolean isExpanded = expandableList.expandedGroupIndexes[listPos.groupPos];
+    int groupIndex = requireGroupIndex(group);
     // No-op on repeating calls
-    if (!isExpanded) {
-      expandGroup(listPos);
+    if (!expandableList.isGroupExpanded(groupIndex)) {
+      expandGroupAt(groupIndex);
     }
   }
 
@@ -106,11 +199,10 @@ public class ExpandCollapseController {
    * @param flatPos 组的平面列表位置
    */
   void expandGroup(int flatPos) {
-    ExpandableListPosition listPos = expandableList.getUnflattenedPosition(flatPos);
-    boolean isExpanded = expandableList.expandedGroupIndexes[listPos.groupPos];
+    int groupIndex = getGroupIndex(flatPos);
     // No-op on repeating calls
-    if (!isExpanded) {
-      expandGroup(listPos);
+    if (!expandableList.isGroupExpanded(groupIndex)) {
+      expandGroupAt(groupIndex);
     }
   }
 
@@ -118,12 +210,10 @@ public class ExpandCollapseController {
    * @param group 正在折叠的 {@link ExpandableGroup}
    */
   void collapseGroup(ExpandableGroup group) {
-    ExpandableListPosition listPos =
-            expandableList.getUnflattenedPosition(expandableList.getFlattenedGroupIndex(group));
-    boolean isExpanded = expandableList.expandedGroupIndexes[listPos.groupPos];
+    int groupIndex = requireGroupIndex(group);
     // No-op on repeating calls
-    if (isExpanded) {
-      collapseGroup(listPos);
+    if (expandableList.isGroupExpanded(groupIndex)) {
+      collapseGroupAt(groupIndex);
     }
   }
 
@@ -131,11 +221,87 @@ public class ExpandCollapseController {
    * @param flatPos 组的平面列表位置
    */
   void collapseGroup(int flatPos) {
-    ExpandableListPosition listPos = expandableList.getUnflattenedPosition(flatPos);
-    boolean isExpanded = expandableList.expandedGroupIndexes[listPos.groupPos];
+    int groupIndex = getGroupIndex(flatPos);
     // No-op on repeating calls
-    if (isExpanded) {
-      collapseGroup(listPos);
+    if (expandableList.isGroupExpanded(groupIndex)) {
+      collapseGroupAt(groupIndex);
+    }
+  }
+
+  /**
+   * 展开所有组，只发出一次批量回调。手风琴模式下同样展开所有组，下一次展开单个组时再一并折叠
+   */
+  void expandAll() {
+    setAllGroupsExpanded(true);
+  }
+
+  /**
+   * 折叠所有组，只发出一次批量回调
+   */
+  void collapseAll() {
+    setAllGroupsExpanded(false);
+  }
+
+  /**
+   * @param groups 要展开的 {@link ExpandableGroup}，已经展开的组被忽略
+   */
+  void expandGroups(Collection<? extends ExpandableGroup> groups) {
+    setGroupsExpanded(groups, true);
+  }
+
+  /**
+   * @param groups 要折叠的 {@link ExpandableGroup}，已经折叠的组被忽略
+   */
+  void collapseGroups(Collection<? extends ExpandableGroup> groups) {
+    setGroupsExpanded(groups, false);
+  }
+
+  private void setAllGroupsExpanded(boolean expanded) {
+    int size = expandableList.groups.size();
+    int count = expanded ? size - expandableList.getExpandedGroupCount()
+        : expandableList.getExpandedGroupCount();
+    int[] changed = new int[count];
+    // 按字跳过已经处于目标状态的组
+    int i = 0;
+    int groupIndex = expandableList.nextGroupWithExpandState(0, !expanded);
+    while (groupIndex >= 0) {
+      changed[i++] = groupIndex;
+      groupIndex = expandableList.nextGroupWithExpandState(groupIndex + 1, !expanded);
+    }
+    applyGroupsExpanded(changed, count, expanded);
+  }
+
+  private void setGroupsExpanded(Collection<? extends ExpandableGroup> groups, boolean expanded) {
+    int[] changed = new int[groups.size()];
+    int count = 0;
+    for (ExpandableGroup group : groups) {
+      int groupIndex = expandableList.indexOfGroup(group);
+      if (groupIndex >= 0 && expandableList.isGroupExpanded(groupIndex) != expanded) {
+        changed[count++] = groupIndex;
+      }
+    }
+    // 回调要求升序且不重复
+    Arrays.sort(changed, 0, count);
+    int unique = 0;
+    for (int i = 0; i < count; i++) {
+      if (unique == 0 || changed[unique - 1] != changed[i]) {
+        changed[unique++] = changed[i];
+      }
+    }
+    applyGroupsExpanded(changed, unique, expanded);
+  }
+
+  private void applyGroupsExpanded(int[] groupIndexes, int count, boolean expanded) {
+    if (count == 0) {
+      return;
+    }
+    expandableList.setGroupsExpanded(groupIndexes, count, expanded);
+    if (expanded) {
+      // 可能已经有多个组展开，下一次手风琴展开时扫描所有展开的组
+      openGroupIndex = -1;
+    }
+    if (listener != null) {
+      listener.onGroupsExpandStateChanged(expandableList, groupIndexes, count);
     }
   }
-}
\ No newline at end of file
+}
@@ -0,0 +1,240 @@
+package com.thoughtbot.expandablerecyclerview;
+
+import android.os.Handler;
+import android.os.Looper;
+
+import androidx.recyclerview.widget.DiffUtil;
+
+import com.thoughtbot.expandablerecyclerview.models.ExpandableGroup;
+import com.thoughtbot.expandablerecyclerview.models.ExpandableList;
+import com.thoughtbot.expandablerecyclerview.models.ExpandableListPosition;
+import com.thoughtbot.expandablerecyclerview.models.FlattenedSnapshot;
+import com.thoughtbot.expandablerecyclerview.models.LazyExpandableGroup;
+import com.thoughtbot.expandablerecyclerview.models.PackedBitSet;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * 为 {@link ExpandableRecyclerViewAdapter#setGroups(List)} 在后台线程计算新旧两份展平列表之间的差异，
+ * 然后在主线程一次性替换 {@link ExpandableList} 的内容并分发最少的插入/删除/移动/变化通知。
+ * <p>
+ * 新旧列表中的组和子项按 {@link ExpandableRecyclerViewAdapter#getGroupKey(ExpandableGroup)} 和
+ * {@link ExpandableRecyclerViewAdapter#getChildKey(ExpandableGroup, int)} 匹配，仍然存在的组保留原来的展开状态。
+ */
+class ExpandableListDiffer {
+
+    private static ExecutorService sDiffExecutor;
+
+    private final ExpandableRecyclerViewAdapter adapter;
+    private final ExpandableList expandableList;
+    private final Handler mainHandler = new Handler(Looper.getMainLooper());
+    private Executor diffExecutor;
+
+    /**
+     * 最近一次提交的序号，计算完成时序号已过期的结果会被丢弃
+     */
+    private int maxScheduledGeneration;
+
+    ExpandableListDiffer(ExpandableRecyclerViewAdapter adapter, ExpandableList expandableList) {
+        this.adapter = adapter;
+        this.expandableList = expandableList;
+    }
+
+    void setDiffExecutor(Executor executor) {
+        diffExecutor = executor;
+    }
+
+    Executor getDiffExecutor() {
+        if (diffExecutor == null) {
+            diffExecutor = getDefaultExecutor();
+        }
+        return diffExecutor;
+    }
+
+    /**
+     * @return 所有适配器共享的单线程后台执行器
+     */
+    static Executor getDefaultExecutor() {
+        synchronized (ExpandableListDiffer.class) {
+            if (sDiffExecutor == null) {
+                sDiffExecutor = Executors.newSingleThreadExecutor();
+            }
+            return sDiffExecutor;
+        }
+    }
+
+    /**
+     * 在主线程调用
+     *
+     * @param newGroups 替换当前数据的组列表
+     */
+    void submitGroups(final List<? extends ExpandableGroup> newGroups) {
+        final int runGeneration = ++maxScheduledGeneration;
+        final List<? extends ExpandableGroup> oldGroups = expandableList.groups;
+        final PackedBitSet oldExpanded = expandableList.copyExpandState();
+        final int oldModCount = expandableList.getModificationCount();
+        // 组列表在主线程原地增删，后台只读取副本；新快照也引用副本，发布后供后台重建继续使用
+        final List<? extends ExpandableGroup> oldGroupsCopy = new ArrayList<>(oldGroups);
+        final List<? extends ExpandableGroup> newGroupsCopy = new ArrayList<>(newGroups);
+
+        getDiffExecutor().execute(new Runnable() {
+            @Override
+            public void run() {
+                final Result result = calculate(adapter, oldGroupsCopy, oldExpanded, newGroupsCopy);
+                mainHandler.post(new Runnable() {
+                    @Override
+                    public void run() {
+                        if (runGeneration != maxScheduledGeneration) {
+                            return;
+                        }
+                        if (expandableList.groups != oldGroups
+                                || expandableList.getModificationCount() != oldModCount) {
+                            // 计算期间列表又被展开/折叠或修改过，差异的基准已经过期，基于当前状态重新计算
+                            submitGroups(newGroups);
+                            return;
+                        }
+                        expandableList.setGroups(newGroups, result.newExpanded.copy());
+                        adapter.dispatchDiffResult(result.diffResult, result.newSnapshot);
+                    }
+                });
+            }
+        });
+    }
+
+    /**
+     * 在后台线程计算的结果
+     */
+    static final class Result {
+        final PackedBitSet newExpanded;
+        final FlattenedSnapshot newSnapshot;
+        final DiffUtil.DiffResult diffResult;
+
+        Result(PackedBitSet newExpanded, FlattenedSnapshot newSnapshot, DiffUtil.DiffResult diffResult) {
+            this.newExpanded = newExpanded;
+            this.newSnapshot = newSnapshot;
+            this.diffResult = diffResult;
+        }
+    }
+
+    /**
+     * 计算新列表的展开状态、快照以及新旧展平列表之间的差异，不访问主线程状态
+     */
+    static Result calculate(final ExpandableRecyclerViewAdapter adapter,
+                            final List<? extends ExpandableGroup> oldGroups, final PackedBitSet oldExpanded,
+                            final List<? extends ExpandableGroup> newGroups) {
+        final Object[] oldKeys = getGroupKeys(adapter, oldGroups);
+        final Object[] newKeys = getGroupKeys(adapter, newGroups);
+        final PackedBitSet newExpanded = computeExpandState(oldKeys, oldExpanded, newKeys);
+        final FlattenedSnapshot oldSnapshot = FlattenedSnapshot.build(oldGroups, oldExpanded);
+        final FlattenedSnapshot newSnapshot = FlattenedSnapshot.build(newGroups, newExpanded);
+        DiffUtil.DiffResult diffResult = DiffUtil.calculateDiff(new DiffUtil.Callback() {
+            @Override
+            public int getOldListSize() {
+                return oldSnapshot.size();
+            }
+
+            @Override
+            public int getNewListSize() {
+                return newSnapshot.size();
+            }
+
+            @Override
+            public boolean areItemsTheSame(int oldItemPosition, int newItemPosition) {
+                long oldRow = oldSnapshot.getPackedPosition(oldItemPosition);
+                long newRow = newSnapshot.getPackedPosition(newItemPosition);
+                int type = ExpandableListPosition.getPackedPositionType(oldRow);
+                if (type != ExpandableListPosition.getPackedPositionType(newRow)) {
+                    return false;
+                }
+                int oldGroupIndex = ExpandableListPosition.getPackedPositionGroup(oldRow);
+                int newGroupIndex = ExpandableListPosition.getPackedPositionGroup(newRow);
+                if (!keyEquals(oldKeys[oldGroupIndex], newKeys[newGroupIndex])) {
+                    return false;
+                }
+                if (type == ExpandableListPosition.GROUP) {
+                    return true;
+                }
+                ExpandableGroup oldGroup = oldGroups.get(oldGroupIndex);
+                ExpandableGroup newGroup = newGroups.get(newGroupIndex);
+                int oldChildIndex = ExpandableListPosition.getPackedPositionChild(oldRow);
+                int newChildIndex = ExpandableListPosition.getPackedPositionChild(newRow);
+                boolean oldPlaceholder = isPlaceholder(oldGroup, oldChildIndex);
+                boolean newPlaceholder = isPlaceholder(newGroup, newChildIndex);
+                if (oldPlaceholder || newPlaceholder) {
+                    // 占位行没有子项可比较，同一组中索引相同的占位行视为同一行
+                    return oldPlaceholder && newPlaceholder && oldChildIndex == newChildIndex;
+                }
+                return keyEquals(adapter.getChildKey(oldGroup, oldChildIndex),
+                        adapter.getChildKey(newGroup, newChildIndex));
+            }
+
+            @Override
+            public boolean areContentsTheSame(int oldItemPosition, int newItemPosition) {
+                long oldRow = oldSnapshot.getPackedPosition(oldItemPosition);
+                long newRow = newSnapshot.getPackedPosition(newItemPosition);
+                int oldGroupIndex = ExpandableListPosition.getPackedPositionGroup(oldRow);
+                int newGroupIndex = ExpandableListPosition.getPackedPositionGroup(newRow);
+                ExpandableGroup oldGroup = oldGroups.get(oldGroupIndex);
+                ExpandableGroup newGroup = newGroups.get(newGroupIndex);
+                if (ExpandableListPosition.getPackedPositionType(oldRow) == ExpandableListPosition.GROUP) {
+                    return oldExpanded.get(oldGroupIndex) == newExpanded.get(newGroupIndex)
+                            && adapter.areGroupContentsTheSame(oldGroup, newGroup);
+                }
+                int oldChildIndex = ExpandableListPosition.getPackedPositionChild(oldRow);
+                int newChildIndex = ExpandableListPosition.getPackedPositionChild(newRow);
+                boolean oldPlaceholder = isPlaceholder(oldGroup, oldChildIndex);
+                boolean newPlaceholder = isPlaceholder(newGroup, newChildIndex);
+                if (oldPlaceholder || newPlaceholder) {
+                    return oldPlaceholder && newPlaceholder;
+                }
+                return adapter.areChildContentsTheSame(oldGroup.getItems().get(oldChildIndex),
+                        newGroup.getItems().get(newChildIndex));
+            }
+        });
+        return new Result(newExpanded, newSnapshot, diffResult);
+    }
+
+    /**
+     * 尚未加载完成的 {@link LazyExpandableGroup} 只有占位行，与 {@link SnapshotPublisher} 过滤时一样跳过它的子项。
+     * 组可能正在主线程加载，所以同时检查子项数
+     */
+    private static boolean isPlaceholder(ExpandableGroup group, int childIndex) {
+        List<?> items = group.getItems();
+        return items == null || childIndex >= items.size();
+    }
+
+    private static Object[] getGroupKeys(ExpandableRecyclerViewAdapter adapter,
+                                         List<? extends ExpandableGroup> groups) {
+        Object[] keys = new Object[groups.size()];
+        for (int i = 0; i < keys.length; i++) {
+            keys[i] = adapter.getGroupKey(groups.get(i));
+        }
+        return keys;
+    }
+
+    private static boolean keyEquals(Object oldKey, Object newKey) {
+        return oldKey == null ? newKey == null : oldKey.equals(newKey);
+    }
+
+    private static PackedBitSet computeExpandState(Object[] oldKeys, PackedBitSet oldExpanded, Object[] newKeys) {
+        Set<Object> expandedKeys = new HashSet<>();
+        for (int i = oldExpanded.nextSetBit(0); i >= 0; i = oldExpanded.nextSetBit(i + 1)) {
+            expandedKeys.add(oldKeys[i]);
+        }
+        PackedBitSet newExpanded = new PackedBitSet(newKeys.length);
+        if (!expandedKeys.isEmpty()) {
+            for (int i = 0; i < newKeys.length; i++) {
+                if (expandedKeys.contains(newKeys[i])) {
+                    newExpanded.set(i);
+                }
+            }
+        }
+        return newExpanded;
+    }
+}
@@ -2,33 +2,55 @@ package com.thoughtbot.expandablerecyclerview;
 
 import android.app.Activity;
 import android.os.Bundle;
+import android.os.Handler;
+import android.os.Looper;
+import android.os.Parcelable;
 //import android.support.v7.widget.RecyclerView;
 //import android.support.v7.widget.RecyclerView.ViewHolder;
 import android.view.ViewGroup;
 
+import androidx.recyclerview.widget.DiffUtil;
 import androidx.recyclerview.widget.RecyclerView;
 
 import com.thoughtbot.expandablerecyclerview.listeners.ExpandCollapseListener;
 import com.thoughtbot.expandablerecyclerview.listeners.GroupExpandCollapseListener;
 import com.thoughtbot.expandablerecyclerview.listeners.OnGroupClickListener;
+import com.thoughtbot.expandablerecyclerview.models.ChildDataSource;
+import com.thoughtbot.expandablerecyclerview.models.ExpandableFilter;
 import com.thoughtbot.expandablerecyclerview.models.ExpandableGroup;
 import com.thoughtbot.expandablerecyclerview.models.ExpandableList;
 import com.thoughtbot.expandablerecyclerview.models.ExpandableListPosition;
+import com.thoughtbot.expandablerecyclerview.models.FlattenedSnapshot;
+import com.thoughtbot.expandablerecyclerview.models.LazyExpandableGroup;
+import com.thoughtbot.expandablerecyclerview.models.PackedBitSet;
+import com.thoughtbot.expandablerecyclerview.models.StableIdProvider;
 import com.thoughtbot.expandablerecyclerview.viewholders.ChildViewHolder;
 import com.thoughtbot.expandablerecyclerview.viewholders.GroupViewHolder;
 
+import java.util.ArrayList;
+import java.util.Collection;
 import java.util.List;
+import java.util.concurrent.Executor;
 
 public abstract class ExpandableRecyclerViewAdapter<GVH extends GroupViewHolder, CVH extends ChildViewHolder>
         extends RecyclerView.Adapter implements ExpandCollapseListener, OnGroupClickListener {
 
     private static final String EXPAND_STATE_MAP = "expandable_recyclerview_adapter_expand_state_map";
+    private static final String EXPAND_STATE_WORDS = "expandable_recyclerview_adapter_expand_state_words";
+    private static final String EXPAND_STATE_SIZE = "expandable_recyclerview_adapter_expand_state_size";
+    private static final int DEFAULT_BATCH_NOTIFY_THRESHOLD = 64;
 
     protected ExpandableList expandableList;
     private ExpandCollapseController expandCollapseController;
+    private ExpandableListDiffer differ;
+    private SnapshotPublisher snapshotPublisher;
+    private Handler mainHandler;
 
     private OnGroupClickListener groupClickListener;
     private GroupExpandCollapseListener expandCollapseListener;
+    private int batchNotifyThreshold = DEFAULT_BATCH_NOTIFY_THRESHOLD;
+    private StableIdProvider stableIdProvider;
+    private ExpandableFilter filter;
 
     public ExpandableRecyclerViewAdapter(List<? extends ExpandableGroup> groups) {
         this.expandableList = new ExpandableList(groups);
@@ -69,31 +91,75 @@ public abstract class ExpandableRecyclerViewAdapter<GVH extends GroupViewHolder,
      */
     @Override
     public void onBindViewHolder(RecyclerView.ViewHolder holder, int position) {
-        ExpandableListPosition listPos = expandableList.getUnflattenedPosition(position);
-        ExpandableGroup group = expandableList.getExpandableGroup(listPos);
-        switch (listPos.type) {
+        long packedPos = getPackedPosition(position);
+        int groupIndex = ExpandableListPosition.getPackedPositionGroup(packedPos);
+        ExpandableGroup group = expandableList.groups.get(groupIndex);
+        switch (ExpandableListPosition.getPackedPositionType(packedPos)) {
             case ExpandableListPosition.GROUP:
                 onBindGroupViewHolder((GVH) holder, position, group);
 
-                if (isGroupExpanded(group)) {
+                if (isGroupExpandedInView(groupIndex)) {
                     ((GVH) holder).expand();
                 } else {
                     ((GVH) holder).collapse();
                 }
                 break;
             case ExpandableListPosition.CHILD:
-                onBindChildViewHolder((CVH) holder, position, group, listPos.childPos);
+                bindChildViewHolder((CVH) holder, position, group,
+                        ExpandableListPosition.getPackedPositionChild(packedPos));
                 break;
         }
     }
 
+    /**
+     * 带 payload 的局部绑定。payload 为空时等同于 {@link #onBindViewHolder(RecyclerView.ViewHolder, int)}，
+     * 否则交给 {@link #onBindGroupViewHolder(GroupViewHolder, int, ExpandableGroup, List)} 或
+     * {@link #onBindChildViewHolder(ChildViewHolder, int, ExpandableGroup, int, List)}，子类可以只更新变化的部分
+     *
+     * @param holder   要绑定数据的 GroupViewHolder 或 ChildViewHolder
+     * @param position 要绑定的列表中的平面位置
+     * @param payloads 随 notifyItemChanged 发出的 payload，可能为空
+     */
+    @Override
+    public void onBindViewHolder(RecyclerView.ViewHolder holder, int position, List payloads) {
+        if (payloads.isEmpty()) {
+            onBindViewHolder(holder, position);
+            return;
+        }
+        long packedPos = getPackedPosition(position);
+        ExpandableGroup group =
+                expandableList.groups.get(ExpandableListPosition.getPackedPositionGroup(packedPos));
+        if (ExpandableListPosition.getPackedPositionType(packedPos) == ExpandableListPosition.GROUP) {
+            onBindGroupViewHolder((GVH) holder, position, group, payloads);
+        } else if (isPlaceholder(group)) {
+            onBindViewHolder(holder, position);
+        } else {
+            onBindChildViewHolder((CVH) holder, position, group,
+                    ExpandableListPosition.getPackedPositionChild(packedPos), payloads);
+        }
+    }
+
+    /**
+     * 绑定子项，尚未加载完成的 {@link LazyExpandableGroup} 的子项位置改为绑定占位内容
+     */
+    void bindChildViewHolder(CVH holder, int position, ExpandableGroup group, int childIndex) {
+        // 后台快照模式下，子项加载完成到新快照发布之间，旧快照中的行可能超出实际子项数
+        if (isPlaceholder(group) || childIndex >= group.getItemCount()) {
+            loadChildrenIfNeeded(group, false);
+            onBindPlaceholderViewHolder(holder, position, group, childIndex);
+        } else {
+            onBindChildViewHolder(holder, position, group, childIndex);
+        }
+    }
+
     /**
      * @return 当前展开的组和子对象的数量
      * @see ExpandableList#getVisibleItemCount()
      */
     @Override
     public int getItemCount() {
-        return expandableList.getVisibleItemCount();
+        return snapshotPublisher != null
+                ? snapshotPublisher.getSnapshot().size() : expandableList.getVisibleItemCount();
     }
 
     /**
@@ -105,7 +171,86 @@ public abstract class ExpandableRecyclerViewAdapter<GVH extends GroupViewHolder,
      */
     @Override
     public int getItemViewType(int position) {
-        return expandableList.getUnflattenedPosition(position).type;
+        return ExpandableListPosition.getPackedPositionType(getPackedPosition(position));
+    }
+
+    /**
+     * 把 RecyclerView 中的位置（adapter position）转换为打包位置。开启后台快照时读取已发布的快照（O(1)），
+     * 它可能落后于 {@link #expandableList}；否则直接查询 {@link #expandableList}
+     *
+     * @param flatPos RecyclerView 中的平面位置
+     * @return 打包位置，见 {@link ExpandableListPosition#packGroupPosition(int)}
+     */
+    protected long getPackedPosition(int flatPos) {
+        return snapshotPublisher != null
+                ? snapshotPublisher.getSnapshot().getPackedPosition(flatPos)
+                : expandableList.getUnflattenedPackedPosition(flatPos);
+    }
+
+    /**
+     * @return 组在 RecyclerView 当前显示的数据中是否展开
+     */
+    boolean isGroupExpandedInView(int groupIndex) {
+        return snapshotPublisher != null
+                ? snapshotPublisher.getSnapshot().isGroupExpanded(groupIndex)
+                : expandableList.isGroupExpanded(groupIndex);
+    }
+
+    /**
+     * @return 组标题在 RecyclerView 当前显示的数据中的平面位置，在前缀和索引上 O(log n)，开启后台快照时 O(1)
+     */
+    int getFlattenedGroupPositionInView(int groupIndex) {
+        return snapshotPublisher != null
+                ? snapshotPublisher.getSnapshot().getFlattenedGroupIndex(groupIndex)
+                : expandableList.getFlattenedGroupIndex(groupIndex);
+    }
+
+    /**
+     * 设置了 {@link StableIdProvider} 时返回组 id 与子项 id 打包后的稳定 id，否则返回 {@link RecyclerView#NO_ID}
+     *
+     * @param position 列表中的平面位置
+     * @return 该位置的稳定 id
+     * @throws IllegalArgumentException 组 id 或子项 id 为负数，打包后会与其他 id 或 {@link RecyclerView#NO_ID} 冲突
+     */
+    @Override
+    public long getItemId(int position) {
+        if (stableIdProvider == null) {
+            return RecyclerView.NO_ID;
+        }
+        long packedPos = getPackedPosition(position);
+        ExpandableGroup group =
+                expandableList.groups.get(ExpandableListPosition.getPackedPositionGroup(packedPos));
+        int groupId = stableIdProvider.getGroupId(group);
+        if (groupId < 0) {
+            throw new IllegalArgumentException("groupId < 0: " + groupId);
+        }
+        if (ExpandableListPosition.getPackedPositionType(packedPos) == ExpandableListPosition.GROUP) {
+            return ExpandableListPosition.packGroupPosition(groupId);
+        }
+        int childId = stableIdProvider.getChildId(group,
+                ExpandableListPosition.getPackedPositionChild(packedPos));
+        if (childId < 0) {
+            throw new IllegalArgumentException("childId < 0: " + childId);
+        }
+        return ExpandableListPosition.packChildPosition(groupId, childId);
+    }
+
+    /**
+     * 设置组和子项的稳定 id 来源，并相应地开启或关闭 {@link #setHasStableIds(boolean)}。
+     * 必须在适配器设置给 RecyclerView 之前调用
+     *
+     * @param provider 稳定 id 的来源，为 null 时关闭稳定 id
+     */
+    public void setStableIdProvider(StableIdProvider provider) {
+        stableIdProvider = provider;
+        setHasStableIds(provider != null);
+    }
+
+    /**
+     * @return 当前的稳定 id 来源，没有设置时为 null
+     */
+    public StableIdProvider getStableIdProvider() {
+        return stableIdProvider;
     }
 
     /**
@@ -118,16 +263,19 @@ public abstract class ExpandableRecyclerViewAdapter<GVH extends GroupViewHolder,
     public void onGroupExpanded(int positionStart, int itemCount) {
         //update header
         int headerPosition = positionStart - 1;
-        notifyItemChanged(headerPosition);
+        dispatchItemRangeChanged(headerPosition, 1, null);
+        int groupIndex = ExpandableListPosition.getPackedPositionGroup(
+                expandableList.getUnflattenedPackedPosition(headerPosition));
+        ExpandableGroup group = getGroups().get(groupIndex);
 
         // only insert if there items to insert
         if (itemCount > 0) {
-            notifyItemRangeInserted(positionStart, itemCount);
+            dispatchItemRangeInserted(positionStart, itemCount);
             if (expandCollapseListener != null) {
-                int groupIndex = expandableList.getUnflattenedPosition(positionStart).groupPos;
-                expandCollapseListener.onGroupExpanded(getGroups().get(groupIndex));
+                expandCollapseListener.onGroupExpanded(group);
             }
         }
+        loadChildrenIfNeeded(group, true);
     }
 
     /**
@@ -140,19 +288,185 @@ public abstract class ExpandableRecyclerViewAdapter<GVH extends GroupViewHolder,
     public void onGroupCollapsed(int positionStart, int itemCount) {
         //update header
         int headerPosition = positionStart - 1;
-        notifyItemChanged(headerPosition);
+        dispatchItemRangeChanged(headerPosition, 1, null);
 
         // only remote if there items to remove
         if (itemCount > 0) {
-            notifyItemRangeRemoved(positionStart, itemCount);
+            dispatchItemRangeRemoved(positionStart, itemCount);
             if (expandCollapseListener != null) {
                 //minus one to return the position of the header, not first child
-                int groupIndex = expandableList.getUnflattenedPosition(positionStart - 1).groupPos;
+                int groupIndex = ExpandableListPosition.getPackedPositionGroup(
+                        expandableList.getUnflattenedPackedPosition(positionStart - 1));
                 expandCollapseListener.onGroupCollapsed(getGroups().get(groupIndex));
             }
         }
     }
 
+    /**
+     * 批量展开或折叠之后调用。按组索引升序逐组发出范围通知：处理到某个组时，它之前的组都已通知为最终状态，
+     * 所以它在最终状态下的平面位置就是通知时的位置。变化的组超过 {@link #setBatchNotifyThreshold(int)} 时改为一次
+     * {@link #notifyDataSetChanged()}
+     *
+     * @param expandableList 即本适配器的 {@link #expandableList}
+     * @param groupIndexes   展开状态发生变化的组的索引，按升序排列
+     * @param count          {@code groupIndexes} 中有效元素的个数
+     */
+    @Override
+    public void onGroupsExpandStateChanged(ExpandableList expandableList, int[] groupIndexes, int count) {
+        boolean notifyEach = count <= batchNotifyThreshold;
+        if (!notifyEach) {
+            dispatchDataSetChanged();
+        }
+        for (int i = 0; i < count; i++) {
+            int groupIndex = groupIndexes[i];
+            ExpandableGroup group = expandableList.groups.get(groupIndex);
+            int itemCount = group.getItemCount();
+            boolean expanded = expandableList.isGroupExpanded(groupIndex);
+            if (notifyEach) {
+                int headerPosition = expandableList.getFlattenedGroupIndex(groupIndex);
+                dispatchItemRangeChanged(headerPosition, 1, null);
+                if (itemCount > 0) {
+                    if (expanded) {
+                        dispatchItemRangeInserted(headerPosition + 1, itemCount);
+                    } else {
+                        dispatchItemRangeRemoved(headerPosition + 1, itemCount);
+                    }
+                }
+            }
+            if (expanded) {
+                loadChildrenIfNeeded(group, true);
+            }
+            if (expandCollapseListener != null && itemCount > 0) {
+                if (expanded) {
+                    expandCollapseListener.onGroupExpanded(group);
+                } else {
+                    expandCollapseListener.onGroupCollapsed(group);
+                }
+            }
+        }
+    }
+
+    private static boolean isPlaceholder(ExpandableGroup group) {
+        return group instanceof LazyExpandableGroup && !((LazyExpandableGroup) group).isLoaded();
+    }
+
+    /**
+     * 如果 {@code group} 是尚未加载的 {@link LazyExpandableGroup}，开始加载它的子项。
+     * 加载结果被投递到主线程，只对该组的子项范围发出通知
+     *
+     * @param retryFailed 上一次加载失败时是否重新加载。绑定占位行时为 false，避免每次重新绑定都再次请求
+     */
+    private void loadChildrenIfNeeded(ExpandableGroup group, boolean retryFailed) {
+        if (!isPlaceholder(group)) {
+            return;
+        }
+        LazyExpandableGroup lazyGroup = (LazyExpandableGroup) group;
+        if (lazyGroup.isLoadFailed() && !retryFailed) {
+            return;
+        }
+        if (mainHandler == null) {
+            mainHandler = new Handler(Looper.getMainLooper());
+        }
+        lazyGroup.load(new ChildLoadCallback(lazyGroup));
+    }
+
+    /**
+     * 重新加载组的子项，用于加载失败或迟迟没有回调时。正在进行的加载被放弃，它之后的结果会被忽略
+     *
+     * @param group 尚未加载完成的 {@link LazyExpandableGroup}，其他的组没有任何作用
+     */
+    public void retryLoadChildren(ExpandableGroup group) {
+        if (!isPlaceholder(group)) {
+            return;
+        }
+        ((LazyExpandableGroup) group).cancelLoad();
+        loadChildrenIfNeeded(group, true);
+    }
+
+    /**
+     * 把加载结果投递到主线程，已被 {@link LazyExpandableGroup#cancelLoad()} 放弃的加载的结果被忽略
+     */
+    private final class ChildLoadCallback implements ChildDataSource.Callback {
+        private final LazyExpandableGroup group;
+
+        ChildLoadCallback(LazyExpandableGroup group) {
+            this.group = group;
+        }
+
+        @Override
+        public void onChildrenLoaded(final List children) {
+            mainHandler.post(new Runnable() {
+                @Override
+                public void run() {
+                    if (group.isPendingLoad(ChildLoadCallback.this)) {
+                        applyLoadedChildren(group, children);
+                    }
+                }
+            });
+        }
+
+        @Override
+        public void onLoadFailed(final Throwable error) {
+            mainHandler.post(new Runnable() {
+                @Override
+                public void run() {
+                    if (group.isPendingLoad(ChildLoadCallback.this)) {
+                        applyLoadFailed(group, error);
+                    }
+                }
+            });
+        }
+    }
+
+    private void applyLoadFailed(LazyExpandableGroup group, Throwable error) {
+        group.setLoadFailed(error);
+        int groupIndex = expandableList.indexOfGroup(group);
+        if (groupIndex >= 0 && expandableList.groups.get(groupIndex) == group
+                && expandableList.isGroupExpanded(groupIndex) && group.getItemCount() > 0) {
+            // 重新绑定占位行，子类可以据此显示失败状态
+            dispatchItemRangeChanged(expandableList.getFlattenedGroupIndex(groupIndex) + 1,
+                    group.getItemCount(), null);
+        }
+        onChildrenLoadFailed(group, error);
+    }
+
+    /**
+     * 子项加载失败时在主线程调用，默认什么也不做。可以在这里提示用户，并用 {@link #retryLoadChildren(ExpandableGroup)}
+     * 重新加载；折叠后再次展开该组也会重新加载
+     *
+     * @param group 加载失败的组
+     * @param error 失败的原因，可能为 null
+     */
+    protected void onChildrenLoadFailed(LazyExpandableGroup group, Throwable error) {
+    }
+
+    private void applyLoadedChildren(LazyExpandableGroup group, List children) {
+        int oldCount = group.getItemCount();
+        group.setLoadedItems(children);
+        int newCount = group.getItemCount();
+        int groupIndex = expandableList.indexOfGroup(group);
+        if (groupIndex < 0 || expandableList.groups.get(groupIndex) != group) {
+            // 加载期间组已经被移出列表，只保留数据
+            return;
+        }
+        if (oldCount != newCount) {
+            expandableList.notifyGroupItemCountChanged(groupIndex);
+        }
+        if (!expandableList.isGroupExpanded(groupIndex)) {
+            return;
+        }
+        int firstChildPosition = expandableList.getFlattenedGroupIndex(groupIndex) + 1;
+        int changedCount = Math.min(oldCount, newCount);
+        if (changedCount > 0) {
+            dispatchItemRangeChanged(firstChildPosition, changedCount, null);
+        }
+        if (newCount > oldCount) {
+            dispatchItemRangeInserted(firstChildPosition + oldCount, newCount - oldCount);
+        } else if (newCount < oldCount) {
+            dispatchItemRangeRemoved(firstChildPosition + newCount, oldCount - newCount);
+        }
+    }
+
     /**
      * 由点击 {@link GroupViewHolder} 触发
      *
@@ -164,7 +478,7 @@ public abstract class ExpandableRecyclerViewAdapter<GVH extends GroupViewHolder,
         if (groupClickListener != null) {
             groupClickListener.onGroupClick(flatPos);
         }
-        return expandCollapseController.toggleGroup(flatPos);
+        return toggleGroup(flatPos);
     }
 
     /**
@@ -172,12 +486,17 @@ public abstract class ExpandableRecyclerViewAdapter<GVH extends GroupViewHolder,
      * @return 如果组已展开，则为 true，*after* 切换，如果组现在已折叠，则为 false
      */
     public boolean toggleGroup(int flatPos) {
+        if (snapshotPublisher != null) {
+            return expandCollapseController.toggleGroupAt(
+                    ExpandableListPosition.getPackedPositionGroup(getPackedPosition(flatPos)));
+        }
         return expandCollapseController.toggleGroup(flatPos);
     }
 
     /**
      * @param group 正在切换的 {@link ExpandableGroup}
      * @return 如果组已展开，则为 true，*after* 切换，如果组现在已折叠，则为 false
+     * @throws IllegalArgumentException 如果 {@code group} 不在 {@link #getGroups()} 中
      */
     public boolean toggleGroup(ExpandableGroup group) {
         return expandCollapseController.toggleGroup(group);
@@ -187,6 +506,7 @@ public abstract class ExpandableRecyclerViewAdapter<GVH extends GroupViewHolder,
      * 显式扩展一个组。 扩展已经扩展的组没有任何作用。
      *
      * @param group 正在扩展的 {@link ExpandableGroup}
+     * @throws IllegalArgumentException 如果 {@code group} 不在 {@link #getGroups()} 中
      */
     public void expandGroup(ExpandableGroup group) {
         expandCollapseController.expandGroup(group);
@@ -196,16 +516,74 @@ public abstract class ExpandableRecyclerViewAdapter<GVH extends GroupViewHolder,
      * 显式折叠组。 折叠已经折叠的组没有任何作用。
      *
      * @param group 正在扩展的 {@link ExpandableGroup}
+     * @throws IllegalArgumentException 如果 {@code group} 不在 {@link #getGroups()} 中
      */
     public void collapseGroup(ExpandableGroup group) {
         expandCollapseController.collapseGroup(group);
     }
 
+    /**
+     * 展开所有组。只计算一遍新状态，并合并为一轮范围通知
+     */
+    public void expandAll() {
+        expandCollapseController.expandAll();
+    }
+
+    /**
+     * 折叠所有组。只计算一遍新状态，并合并为一轮范围通知
+     */
+    public void collapseAll() {
+        expandCollapseController.collapseAll();
+    }
+
+    /**
+     * 批量展开多个组。已经展开的组没有任何作用。
+     *
+     * @param groups 要展开的 {@link ExpandableGroup}
+     */
+    public void expandGroups(Collection<? extends ExpandableGroup> groups) {
+        expandCollapseController.expandGroups(groups);
+    }
+
+    /**
+     * 批量折叠多个组。已经折叠的组没有任何作用。
+     *
+     * @param groups 要折叠的 {@link ExpandableGroup}
+     */
+    public void collapseGroups(Collection<? extends ExpandableGroup> groups) {
+        expandCollapseController.collapseGroups(groups);
+    }
+
+    /**
+     * 开启后同一时间最多只有一个组展开。展开一个组时当前展开的组被折叠，两者合并为一轮按位置升序的范围通知，
+     * 插入的位置已经计入前面的删除，不会跳动。{@link #expandAll()} 和 {@link #expandGroups(Collection)} 不受限制
+     *
+     * @param accordionMode 是否开启手风琴模式
+     */
+    public void setAccordionMode(boolean accordionMode) {
+        expandCollapseController.setAccordionMode(accordionMode);
+    }
+
+    public boolean isAccordionMode() {
+        return expandCollapseController.isAccordionMode();
+    }
+
+    /**
+     * @param threshold 批量展开/折叠时逐组发出范围通知的最大组数，超过后改为一次 {@link #notifyDataSetChanged()}
+     */
+    public void setBatchNotifyThreshold(int threshold) {
+        batchNotifyThreshold = threshold;
+    }
+
     /**
      * @param flatPos 列表中项目的展平位置
      * @return 如果 {@code group} 展开为真，如果折叠为假
      */
     public boolean isGroupExpanded(int flatPos) {
+        if (snapshotPublisher != null) {
+            return expandableList.isGroupExpanded(
+                    ExpandableListPosition.getPackedPositionGroup(getPackedPosition(flatPos)));
+        }
         return expandCollapseController.isGroupExpanded(flatPos);
     }
 
@@ -223,11 +601,14 @@ public abstract class ExpandableRecyclerViewAdapter<GVH extends GroupViewHolder,
      * 应该从承载 {@link ExpandableRecyclerViewAdapter} 附加到的 RecyclerView 的任何 {@link Activity} 调用。
      * <p>
      * 这将确保将扩展状态映射作为额外添加到要在 {@link #onRestoreInstanceState(Bundle)} 中使用的实例状态包中。
+     * 展开状态以按位打包的 long[] 保存，末尾全为 0 的字被省略。
      *
      * @param savedInstanceState 用于存储扩展状态映射的 {@code Bundle}
      */
     public void onSaveInstanceState(Bundle savedInstanceState) {
-        savedInstanceState.putBooleanArray(EXPAND_STATE_MAP, expandableList.expandedGroupIndexes);
+        PackedBitSet expandState = expandableList.copyExpandState();
+        savedInstanceState.putLongArray(EXPAND_STATE_WORDS, expandState.toWords());
+        savedInstanceState.putInt(EXPAND_STATE_SIZE, expandState.size());
     }
 
     /**
@@ -240,11 +621,430 @@ public abstract class ExpandableRecyclerViewAdapter<GVH extends GroupViewHolder,
      * @param savedInstanceState 从中加载扩展状态映射的 {@code Bundle}
      */
     public void onRestoreInstanceState(Bundle savedInstanceState) {
-        if (savedInstanceState == null || !savedInstanceState.containsKey(EXPAND_STATE_MAP)) {
+        if (savedInstanceState == null) {
+            return;
+        }
+        if (savedInstanceState.containsKey(EXPAND_STATE_WORDS)) {
+            expandableList.setExpandState(PackedBitSet.fromWords(
+                    savedInstanceState.getLongArray(EXPAND_STATE_WORDS),
+                    savedInstanceState.getInt(EXPAND_STATE_SIZE)));
+        } else if (savedInstanceState.containsKey(EXPAND_STATE_MAP)) {
+            // 旧版本以 boolean[] 保存的状态
+            expandableList.setExpandState(
+                    PackedBitSet.fromBooleanArray(savedInstanceState.getBooleanArray(EXPAND_STATE_MAP)));
+        } else {
+            return;
+        }
+        dispatchDataSetChanged();
+    }
+
+    /**
+     * 直接修改了 {@link #getGroups()} 的内容或某个组的子项之后调用：使位置索引失效并整体刷新。
+     * {@link #notifyDataSetChanged()} 是 final 的，适配器无法得知数据已经变化，只调用它时位置索引和快照都会过期。
+     * 适配器不注册自身的观察者，否则 {@link #setHasStableIds(boolean)} 会抛出异常
+     */
+    public void notifyDataChanged() {
+        expandableList.notifyDataChanged();
+        dispatchDataSetChanged();
+    }
+
+    /**
+     * 替换全部数据。差异在后台线程计算，完成后在主线程一次性替换并只分发变化部分的插入/删除/移动/变化通知，
+     * 仍然存在的组保留原来的展开状态。
+     * <p>
+     * 新旧列表中的组按 {@link #getGroupKey(ExpandableGroup)}、子项按 {@link #getChildKey(ExpandableGroup, int)} 匹配。
+     * {@link ExpandableGroup} 没有覆盖 equals，默认的键按引用比较：传入重新解析得到的新对象时，需要设置
+     * {@link StableIdProvider} 或覆盖这两个方法，否则所有组都被当作新组，展开状态全部丢失。
+     * <p>
+     * 必须在主线程调用。连续调用时只有最后一次的结果会被应用。不要原地修改当前的列表后再把同一个实例传进来，
+     * 那样旧数据已经丢失，无法计算差异。
+     *
+     * @param groups 新的 {@link ExpandableGroup} 列表
+     */
+    public void setGroups(List<? extends ExpandableGroup> groups) {
+        if (differ == null) {
+            differ = new ExpandableListDiffer(this, expandableList);
+        }
+        differ.submitGroups(groups);
+    }
+
+    /**
+     * 在 {@code groupIndex} 处插入一个折叠的组，只通知它的标题行。展开状态和位置索引随之平移，O(n)。
+     * <p>
+     * 以下增删/移动方法都必须在主线程调用。组列表原地修改；开启后台快照时新的快照在主线程复制组列表后同步构建并发布，
+     * 保证绑定时读取的组和子项与快照一致；过滤时过滤结果无法随索引平移，改为按当前查询同步重新过滤并整体刷新
+     *
+     * @param groupIndex 新组的索引，可以等于组数
+     * @param group      新组
+     */
+    public void addGroup(int groupIndex, ExpandableGroup group) {
+        prepareGroupsMutation();
+        expandableList.insertGroup(groupIndex, group);
+        if (!dispatchFilteredMutation()) {
+            dispatchItemRangeInserted(expandableList.getFlattenedGroupIndex(groupIndex), 1);
+            publishSnapshotNow();
+        }
+    }
+
+    /**
+     * 删除一个组，只通知它当前可见的行，O(n)
+     *
+     * @param groupIndex 要删除的组的索引
+     * @return 被删除的组
+     * @see #addGroup(int, ExpandableGroup)
+     */
+    public ExpandableGroup removeGroup(int groupIndex) {
+        int groupPosition = expandableList.getFlattenedGroupIndex(groupIndex);
+        int rowCount = getVisibleRowCount(groupIndex);
+        prepareGroupsMutation();
+        ExpandableGroup group = expandableList.removeGroup(groupIndex);
+        if (!dispatchFilteredMutation()) {
+            dispatchItemRangeRemoved(groupPosition, rowCount);
+            publishSnapshotNow();
+        }
+        return group;
+    }
+
+    /**
+     * 移动一个组，展开状态随组一起移动，O(n)。它的可见行逐行发出移动通知，
+     * 行数超过 {@link #setBatchNotifyThreshold(int)} 时改为一次删除加一次插入
+     *
+     * @param fromGroupIndex 组原来的索引
+     * @param toGroupIndex   组移动后的索引
+     * @see #addGroup(int, ExpandableGroup)
+     */
+    public void moveGroup(int fromGroupIndex, int toGroupIndex) {
+        if (fromGroupIndex == toGroupIndex) {
+            return;
+        }
+        int fromPosition = expandableList.getFlattenedGroupIndex(fromGroupIndex);
+        int rowCount = getVisibleRowCount(fromGroupIndex);
+        prepareGroupsMutation();
+        expandableList.moveGroup(fromGroupIndex, toGroupIndex);
+        if (dispatchFilteredMutation()) {
+            return;
+        }
+        int toPosition = expandableList.getFlattenedGroupIndex(toGroupIndex);
+        if (rowCount > batchNotifyThreshold) {
+            dispatchItemRangeRemoved(fromPosition, rowCount);
+            dispatchItemRangeInserted(toPosition, rowCount);
+            publishSnapshotNow();
+            return;
+        }
+        // 下移时每次把块的第一行移到目标块的末尾，上移时逐行移到目标块的对应位置，行的顺序保持不变
+        for (int i = 0; i < rowCount; i++) {
+            if (toPosition > fromPosition) {
+                dispatchItemMoved(fromPosition, toPosition + rowCount - 1);
+            } else {
+                dispatchItemMoved(fromPosition + i, toPosition + i);
+            }
+        }
+        publishSnapshotNow();
+    }
+
+    /**
+     * 在组内插入子项。位置索引以 O(log n) 更新，组展开时只通知这一行
+     *
+     * @param groupIndex 组的索引
+     * @param childIndex 新子项在组内的索引，可以等于子项数
+     * @param child      新子项
+     * @throws IllegalStateException 如果组是尚未加载完成的 {@link LazyExpandableGroup}
+     * @see #addGroup(int, ExpandableGroup)
+     */
+    public void addChild(int groupIndex, int childIndex, Parcelable child) {
+        prepareMutation();
+        expandableList.groups.get(groupIndex).insertItem(childIndex, child);
+        expandableList.notifyGroupItemCountChanged(groupIndex);
+        if (dispatchFilteredMutation()) {
+            return;
+        }
+        if (expandableList.isGroupExpanded(groupIndex)) {
+            dispatchItemRangeInserted(expandableList.getFlattenedChildIndex(groupIndex, childIndex), 1);
+        }
+        publishSnapshotNow();
+    }
+
+    /**
+     * 删除组内的子项。位置索引以 O(log n) 更新，组展开时只通知这一行
+     *
+     * @param groupIndex 组的索引
+     * @param childIndex 要删除的子项在组内的索引
+     * @return 被删除的子项
+     * @see #addChild(int, int, Parcelable)
+     */
+    public Parcelable removeChild(int groupIndex, int childIndex) {
+        prepareMutation();
+        Parcelable child = expandableList.groups.get(groupIndex).removeItem(childIndex);
+        expandableList.notifyGroupItemCountChanged(groupIndex);
+        if (!dispatchFilteredMutation()) {
+            if (expandableList.isGroupExpanded(groupIndex)) {
+                dispatchItemRangeRemoved(expandableList.getFlattenedChildIndex(groupIndex, childIndex), 1);
+            }
+            publishSnapshotNow();
+        }
+        return child;
+    }
+
+    /**
+     * 在组内移动子项，组展开时只发出一次移动通知
+     *
+     * @param groupIndex     组的索引
+     * @param fromChildIndex 子项原来的索引
+     * @param toChildIndex   子项移动后的索引
+     * @see #addChild(int, int, Parcelable)
+     */
+    public void moveChild(int groupIndex, int fromChildIndex, int toChildIndex) {
+        if (fromChildIndex == toChildIndex) {
+            return;
+        }
+        prepareMutation();
+        expandableList.groups.get(groupIndex).moveItem(fromChildIndex, toChildIndex);
+        expandableList.notifyGroupItemCountChanged(groupIndex);
+        if (dispatchFilteredMutation()) {
+            return;
+        }
+        if (expandableList.isGroupExpanded(groupIndex)) {
+            int firstChildPosition = expandableList.getFlattenedFirstChildIndex(groupIndex);
+            dispatchItemMoved(firstChildPosition + fromChildIndex, firstChildPosition + toChildIndex);
+        }
+        publishSnapshotNow();
+    }
+
+    private int getVisibleRowCount(int groupIndex) {
+        return expandableList.isGroupExpanded(groupIndex)
+                ? expandableList.groups.get(groupIndex).getItemCount() + 1 : 1;
+    }
+
+    private void prepareMutation() {
+        if (snapshotPublisher != null) {
+            snapshotPublisher.prepareMutation();
+        }
+    }
+
+    /**
+     * 组列表原地修改，{@link #getGroups()} 始终是调用方的列表；已发布的快照引用的是它的副本，之后的快照重新复制
+     */
+    private void prepareGroupsMutation() {
+        prepareMutation();
+        if (snapshotPublisher != null) {
+            snapshotPublisher.onGroupsMutated();
+        }
+    }
+
+    /**
+     * 子项列表是原地修改的，已发布的快照中的行不能等到后台重建完成再替换；
+     * 组在模型中折叠时，已发布的快照里仍可能是展开的
+     */
+    private void publishSnapshotNow() {
+        if (snapshotPublisher != null) {
+            snapshotPublisher.publishNow();
+        }
+    }
+
+    /**
+     * 在模型修改完成后、发出通知之前调用。开启后台快照时之后的通知暂存到 {@link #publishSnapshotNow()}
+     *
+     * @return 如果正在过滤，已经重新过滤并整体刷新，调用方不再需要发出通知
+     */
+    private boolean dispatchFilteredMutation() {
+        return snapshotPublisher != null && snapshotPublisher.onDataMutated();
+    }
+
+    /**
+     * @param executor 用于 {@link #setGroups(List)} 计算差异的后台线程，默认使用一个共享的单线程执行器
+     */
+    public void setDiffExecutor(Executor executor) {
+        if (differ == null) {
+            differ = new ExpandableListDiffer(this, expandableList);
+        }
+        differ.setDiffExecutor(executor);
+        if (snapshotPublisher != null) {
+            snapshotPublisher.setExecutor(executor);
+        }
+    }
+
+    /**
+     * 开启后，展开/折叠、子项加载等变化只立即更新 {@link #expandableList}，展平后的行表（{@link FlattenedSnapshot}）
+     * 在后台线程重建，完成后在主线程一次性替换并按顺序发出对应的通知；绑定时的位置查询变为数组读取。
+     * <p>
+     * 必须在主线程调用。开启时在主线程同步构建一次快照
+     *
+     * @param enabled 是否开启
+     */
+    public void setBackgroundSnapshotsEnabled(boolean enabled) {
+        if (enabled == (snapshotPublisher != null)) {
+            return;
+        }
+        if (enabled) {
+            snapshotPublisher = new SnapshotPublisher(this, expandableList);
+            if (differ != null) {
+                snapshotPublisher.setExecutor(differ.getDiffExecutor());
+            }
+        } else {
+            // 过滤依赖快照，关闭后恢复显示全部数据
+            snapshotPublisher.filter(null, null);
+            snapshotPublisher = null;
+            notifyDataSetChanged();
+        }
+    }
+
+    /**
+     * @param filter {@link #filter(CharSequence)} 使用的匹配规则，为 null 时取消过滤
+     */
+    public void setFilter(ExpandableFilter filter) {
+        this.filter = filter;
+        if (filter == null && snapshotPublisher != null) {
+            snapshotPublisher.filter(null, null);
+        }
+    }
+
+    /**
+     * 只显示匹配 {@code query} 的组和子项。匹配在后台线程进行，完成后在主线程替换快照，
+     * 并按新旧两份结果的差异发出插入/删除通知；查询是上一次的延续（见 {@link ExpandableFilter#isNarrowing}）时
+     * 只在上一次的结果中继续筛选，尚未完成的旧查询被放弃。
+     * <p>
+     * 必须在主线程调用。过滤依赖后台快照，未开启时自动开启 {@link #setBackgroundSnapshotsEnabled(boolean)}
+     *
+     * @param query 查询，为 null 或空时显示全部数据
+     * @throws IllegalStateException 如果没有调用 {@link #setFilter(ExpandableFilter)}
+     */
+    public void filter(CharSequence query) {
+        if (filter == null) {
+            throw new IllegalStateException("setFilter() must be called before filter()");
+        }
+        setBackgroundSnapshotsEnabled(true);
+        snapshotPublisher.filter(filter, query);
+    }
+
+    /**
+     * @return 当前显示的是否为过滤结果
+     */
+    public boolean isFiltering() {
+        return snapshotPublisher != null && snapshotPublisher.isFiltering();
+    }
+
+    /**
+     * 由 {@link ExpandableListDiffer} 在主线程调用，此时 {@link #expandableList} 已经替换为新的数据
+     */
+    void dispatchDiffResult(DiffUtil.DiffResult result, FlattenedSnapshot newSnapshot) {
+        if (snapshotPublisher == null) {
+            result.dispatchUpdatesTo(this);
             return;
         }
-        expandableList.expandedGroupIndexes = savedInstanceState.getBooleanArray(EXPAND_STATE_MAP);
-        notifyDataSetChanged();
+        snapshotPublisher.publish(result, newSnapshot);
+    }
+
+    /**
+     * 发出插入通知。开启后台快照时暂存，直到新快照发布时再发出；子类修改数据后也应使用这些方法而不是直接调用 notify
+     *
+     * @param positionStart 在 {@link #expandableList} 中的平面位置
+     * @param itemCount     插入的行数
+     */
+    protected void dispatchItemRangeInserted(int positionStart, int itemCount) {
+        if (snapshotPublisher != null) {
+            snapshotPublisher.onInserted(positionStart, itemCount);
+        } else {
+            notifyItemRangeInserted(positionStart, itemCount);
+        }
+    }
+
+    /**
+     * @param positionStart 在 {@link #expandableList} 中的平面位置
+     * @param itemCount     删除的行数
+     * @see #dispatchItemRangeInserted(int, int)
+     */
+    protected void dispatchItemRangeRemoved(int positionStart, int itemCount) {
+        if (snapshotPublisher != null) {
+            snapshotPublisher.onRemoved(positionStart, itemCount);
+        } else {
+            notifyItemRangeRemoved(positionStart, itemCount);
+        }
+    }
+
+    /**
+     * @param positionStart 在 {@link #expandableList} 中的平面位置
+     * @param itemCount     变化的行数
+     * @param payload       局部绑定的 payload，可以为 null
+     * @see #dispatchItemRangeInserted(int, int)
+     */
+    protected void dispatchItemRangeChanged(int positionStart, int itemCount, Object payload) {
+        if (snapshotPublisher != null) {
+            snapshotPublisher.onChanged(positionStart, itemCount, payload);
+        } else {
+            notifyItemRangeChanged(positionStart, itemCount, payload);
+        }
+    }
+
+    /**
+     * @param fromPosition 在 {@link #expandableList} 中移动前的平面位置
+     * @param toPosition   移动后的平面位置
+     * @see #dispatchItemRangeInserted(int, int)
+     */
+    protected void dispatchItemMoved(int fromPosition, int toPosition) {
+        if (snapshotPublisher != null) {
+            snapshotPublisher.onMoved(fromPosition, toPosition);
+        } else {
+            notifyItemMoved(fromPosition, toPosition);
+        }
+    }
+
+    /**
+     * @see #dispatchItemRangeInserted(int, int)
+     */
+    protected void dispatchDataSetChanged() {
+        if (snapshotPublisher != null) {
+            snapshotPublisher.onDataSetChanged();
+        } else {
+            notifyDataSetChanged();
+        }
+    }
+
+    /**
+     * 在后台线程由 {@link #setGroups(List)} 调用，返回在新旧列表之间识别同一个组的键，键需要正确实现 equals/hashCode。
+     * 默认：设置了 {@link StableIdProvider} 时为组 id，否则为组本身
+     *
+     * @param group 新列表或旧列表中的组
+     * @return 组的键，在同一个列表中应当唯一
+     */
+    protected Object getGroupKey(ExpandableGroup group) {
+        return stableIdProvider != null ? Integer.valueOf(stableIdProvider.getGroupId(group)) : group;
+    }
+
+    /**
+     * 在后台线程由 {@link #setGroups(List)} 调用，返回识别同一个子项的键，只在两个组的键相同时比较。
+     * 默认：设置了 {@link StableIdProvider} 时为子项 id，否则为子项本身
+     *
+     * @param group      子项所属的组
+     * @param childIndex 子项在组内的索引
+     * @return 子项的键，在同一个组内应当唯一
+     */
+    protected Object getChildKey(ExpandableGroup group, int childIndex) {
+        return stableIdProvider != null
+                ? Integer.valueOf(stableIdProvider.getChildId(group, childIndex))
+                : group.getItems().get(childIndex);
+    }
+
+    /**
+     * 在后台线程由 {@link #setGroups(List)} 调用，判断两个键相同的组标题是否需要重新绑定
+     *
+     * @param oldGroup 旧列表中的组
+     * @param newGroup 新列表中与之相同的组
+     * @return 如果组标题的显示内容没有变化则为 true
+     */
+    protected boolean areGroupContentsTheSame(ExpandableGroup oldGroup, ExpandableGroup newGroup) {
+        String oldTitle = oldGroup.getTitle();
+        return oldTitle == null ? newGroup.getTitle() == null : oldTitle.equals(newGroup.getTitle());
+    }
+
+    /**
+     * 在后台线程由 {@link #setGroups(List)} 调用，判断两个键相同的子项是否需要重新绑定
+     *
+     * @param oldChild 旧列表中的子项
+     * @param newChild 新列表中与之相同的子项
+     * @return 如果子项的显示内容没有变化则为 true
+     */
+    protected boolean areChildContentsTheSame(Object oldChild, Object newChild) {
+        return oldChild == null ? newChild == null : oldChild.equals(newChild);
     }
 
     public void setOnGroupClickListener(OnGroupClickListener listener) {
@@ -282,6 +1082,20 @@ public abstract class ExpandableRecyclerViewAdapter<GVH extends GroupViewHolder,
      */
     public abstract CVH onCreateChildViewHolder(ViewGroup parent, int viewType);
 
+    /**
+     * 为尚未加载完成的 {@link LazyExpandableGroup} 的子项位置绑定占位内容，默认什么也不做。
+     * 加载失败时这些位置会重新绑定一次，可以用 {@link LazyExpandableGroup#isLoadFailed()} 显示失败状态。
+     * 子项加载完成后这些位置会以 {@link #onBindChildViewHolder(ChildViewHolder, int, ExpandableGroup, int)} 重新绑定
+     *
+     * @param holder       将占位内容绑定到的 {@code CVH}
+     * @param flatPosition 列表中占位行的平面位置
+     * @param group        正在加载子项的 {@link LazyExpandableGroup}
+     * @param childIndex   占位行在组内的索引
+     */
+    public void onBindPlaceholderViewHolder(CVH holder, int flatPosition, ExpandableGroup group,
+                                            int childIndex) {
+    }
+
     /**
      * 当绑定到的列表项是子项时，从 onBindViewHolder(RecyclerView.ViewHolder, int) 调用。
      * <p>
@@ -295,6 +1109,20 @@ public abstract class ExpandableRecyclerViewAdapter<GVH extends GroupViewHolder,
     public abstract void onBindChildViewHolder(CVH holder, int flatPosition, ExpandableGroup group,
                                                int childIndex);
 
+    /**
+     * 带 payload 的子项绑定，默认忽略 payload 完整地重新绑定
+     *
+     * @param holder       将数据绑定到的 {@code CVH}
+     * @param flatPosition 列表中绑定子项的平面位置（原始索引）
+     * @param group        子列表项所属的{@link ExpandableGroup}
+     * @param childIndex   这个孩子在它的 {@link ExpandableGroup} 中的索引
+     * @param payloads     非空的 payload 列表
+     */
+    public void onBindChildViewHolder(CVH holder, int flatPosition, ExpandableGroup group,
+                                      int childIndex, List<Object> payloads) {
+        onBindChildViewHolder(holder, flatPosition, group, childIndex);
+    }
+
     /**
      * 当绑定的列表项是一个组时从 onBindViewHolder(RecyclerView.ViewHolder, int) 调用
      * <p>
@@ -305,4 +1133,17 @@ public abstract class ExpandableRecyclerViewAdapter<GVH extends GroupViewHolder,
      * @param group        用于将数据绑定到此 {@link GVH} 的 {@link ExpandableGroup}
      */
     public abstract void onBindGroupViewHolder(GVH holder, int flatPosition, ExpandableGroup group);
+
+    /**
+     * 带 payload 的组绑定，默认忽略 payload 完整地重新绑定
+     *
+     * @param holder       将数据绑定到的 {@code GVH}
+     * @param flatPosition 列表中绑定组的平面位置（原始索引）
+     * @param group        用于将数据绑定到此 {@link GVH} 的 {@link ExpandableGroup}
+     * @param payloads     非空的 payload 列表
+     */
+    public void onBindGroupViewHolder(GVH holder, int flatPosition, ExpandableGroup group,
+                                      List<Object> payloads) {
+        onBindViewHolder(holder, flatPosition);
+    }
 }
@@ -0,0 +1,139 @@
+package com.thoughtbot.expandablerecyclerview;
+
+import android.view.ViewGroup;
+
+import androidx.recyclerview.widget.RecyclerView;
+
+import com.thoughtbot.expandablerecyclerview.listeners.OnGroupClickListener;
+import com.thoughtbot.expandablerecyclerview.models.ExpandableTree;
+import com.thoughtbot.expandablerecyclerview.models.TreeNode;
+import com.thoughtbot.expandablerecyclerview.viewholders.GroupViewHolder;
+
+/**
+ * 显示 {@link ExpandableTree} 的适配器，任意层级的节点都可以展开，用来代替层层嵌套的适配器。
+ * <p>
+ * 每个可见节点占一行，都使用 {@link GroupViewHolder}，点击有子节点的行即展开或折叠该节点。
+ * 平面位置与节点之间的换算以及展开/折叠都由树中每个节点的前缀和索引完成，O(depth · log n)，
+ * 展开/折叠只通知该节点这一行和出现/消失的行。
+ *
+ * @param <T>  节点携带的数据类型
+ * @param <VH> 行的 ViewHolder
+ */
+public abstract class ExpandableTreeRecyclerViewAdapter<T, VH extends GroupViewHolder>
+        extends RecyclerView.Adapter<VH> implements OnGroupClickListener {
+
+    protected final ExpandableTree<T> tree;
+
+    public ExpandableTreeRecyclerViewAdapter(ExpandableTree<T> tree) {
+        this.tree = tree;
+    }
+
+    @Override
+    public VH onCreateViewHolder(ViewGroup parent, int viewType) {
+        VH holder = onCreateNodeViewHolder(parent, viewType);
+        holder.setOnGroupClickListener(this);
+        return holder;
+    }
+
+    @Override
+    public void onBindViewHolder(VH holder, int position) {
+        TreeNode<T> node = tree.getNodeAt(position);
+        onBindNodeViewHolder(holder, position, node);
+        if (node.isExpanded()) {
+            holder.expand();
+        } else {
+            holder.collapse();
+        }
+    }
+
+    /**
+     * @return 当前可见的节点数，O(1)
+     */
+    @Override
+    public int getItemCount() {
+        return tree.getVisibleItemCount();
+    }
+
+    @Override
+    public int getItemViewType(int position) {
+        return getNodeViewType(tree.getNodeAt(position));
+    }
+
+    /**
+     * 子类可以按 {@link TreeNode#getDepth()} 等返回不同的视图类型，默认所有行相同
+     *
+     * @param node 行上的节点
+     * @return 传给 {@link #onCreateNodeViewHolder(ViewGroup, int)} 的视图类型
+     */
+    protected int getNodeViewType(TreeNode<T> node) {
+        return 0;
+    }
+
+    /**
+     * @param flatPos 被点击的行的平面位置
+     * @return 切换之后节点是否展开；叶子节点不切换，返回 false
+     */
+    @Override
+    public boolean onGroupClick(int flatPos) {
+        if (flatPos == RecyclerView.NO_POSITION) {
+            return false;
+        }
+        TreeNode<T> node = tree.getNodeAt(flatPos);
+        if (node.isLeaf()) {
+            return false;
+        }
+        return toggleNode(node);
+    }
+
+    /**
+     * @param node 树中的节点
+     * @return 切换之后节点是否展开
+     */
+    public boolean toggleNode(TreeNode<T> node) {
+        setNodeExpanded(node, !node.isExpanded());
+        return node.isExpanded();
+    }
+
+    /**
+     * 展开或折叠节点。节点可见时通知它这一行以及其后出现/消失的行；节点被折叠的祖先隐藏时只更新状态
+     *
+     * @param node     树中的节点
+     * @param expanded 新的展开状态
+     */
+    public void setNodeExpanded(TreeNode<T> node, boolean expanded) {
+        if (node.isExpanded() == expanded) {
+            return;
+        }
+        int flatPos = tree.getFlatPosition(node);
+        int itemCount = tree.setExpanded(node, expanded);
+        if (flatPos < 0) {
+            return;
+        }
+        notifyItemChanged(flatPos);
+        if (itemCount > 0) {
+            if (expanded) {
+                notifyItemRangeInserted(flatPos + 1, itemCount);
+            } else {
+                notifyItemRangeRemoved(flatPos + 1, itemCount);
+            }
+        }
+    }
+
+    public ExpandableTree<T> getTree() {
+        return tree;
+    }
+
+    /**
+     * @param parent   新的视图将被添加到的 {@link ViewGroup}
+     * @param viewType {@link #getNodeViewType(TreeNode)} 返回的视图类型
+     * @return 新的 ViewHolder
+     */
+    public abstract VH onCreateNodeViewHolder(ViewGroup parent, int viewType);
+
+    /**
+     * @param holder       要绑定数据的 ViewHolder
+     * @param flatPosition 行的平面位置
+     * @param node         行上的节点，可以用 {@link TreeNode#getDepth()} 设置缩进
+     */
+    public abstract void onBindNodeViewHolder(VH holder, int flatPosition, TreeNode<T> node);
+}
@@ -51,18 +51,21 @@ public abstract class MultiTypeExpandableRecyclerViewAdapter<GVH extends GroupVi
      */
     @Override
     public void onBindViewHolder(RecyclerView.ViewHolder holder, int position) {
-        ExpandableListPosition listPos = expandableList.getUnflattenedPosition(position);
-        ExpandableGroup group = expandableList.getExpandableGroup(listPos);
-        if (isGroup(getItemViewType(position))) {
+        long packedPos = getPackedPosition(position);
+        int groupIndex = ExpandableListPosition.getPackedPositionGroup(packedPos);
+        ExpandableGroup group = expandableList.groups.get(groupIndex);
+        int viewType = getItemViewType(position);
+        if (isGroup(viewType)) {
             onBindGroupViewHolder((GVH) holder, position, group);
 
-            if (isGroupExpanded(group)) {
+            if (isGroupExpandedInView(groupIndex)) {
                 ((GVH) holder).expand();
             } else {
                 ((GVH) holder).collapse();
             }
-        } else if (isChild(getItemViewType(position))) {
-            onBindChildViewHolder((CVH) holder, position, group, listPos.childPos);
+        } else if (isChild(viewType)) {
+            bindChildViewHolder((CVH) holder, position, group,
+                    ExpandableListPosition.getPackedPositionChild(packedPos));
         }
     }
 
@@ -75,15 +78,17 @@ public abstract class MultiTypeExpandableRecyclerViewAdapter<GVH extends GroupVi
      */
     @Override
     public int getItemViewType(int position) {
-        ExpandableListPosition listPosition = expandableList.getUnflattenedPosition(position);
-        ExpandableGroup group = expandableList.getExpandableGroup(listPosition);
+        long packedPos = getPackedPosition(position);
+        ExpandableGroup group =
+                expandableList.groups.get(ExpandableListPosition.getPackedPositionGroup(packedPos));
 
-        int viewType = listPosition.type;
+        int viewType = ExpandableListPosition.getPackedPositionType(packedPos);
         switch (viewType) {
             case ExpandableListPosition.GROUP:
                 return getGroupViewType(position, group);
             case ExpandableListPosition.CHILD:
-                return getChildViewType(position, group, listPosition.childPos);
+                return getChildViewType(position, group,
+                        ExpandableListPosition.getPackedPositionChild(packedPos));
             default:
                 return viewType;
         }
@@ -98,6 +103,9 @@ public abstract class MultiTypeExpandableRecyclerViewAdapter<GVH extends GroupVi
      * @return 任何代表 {@code group} *EXCEPT* 中的孩子的 viewType 的 int {@link ExpandableListPosition#CHILD} 和 {@link ExpandableListPosition#GROUP}。
      * <p>
      * 如果您*不*覆盖此方法，则组的默认视图类型为 {@link ExpandableListPosition#CHILD}
+     * <p>
+     * 对于尚未加载完成的 {@link com.thoughtbot.expandablerecyclerview.models.LazyExpandableGroup}，
+     * {@code group.getItems()} 为 null，此时应返回占位行的视图类型
      *
      * <p>
      * 子类可以为 {@link ExpandableListPosition#CHILD} 和 {@link ExpandableListPosition#GROUP} 使用任意数量的 *EXCEPT*，因为它们已被适配器使用
@@ -0,0 +1,662 @@
+package com.thoughtbot.expandablerecyclerview;
+
+import android.os.Handler;
+import android.os.Looper;
+
+import androidx.recyclerview.widget.DiffUtil;
+import androidx.recyclerview.widget.ListUpdateCallback;
+
+import com.thoughtbot.expandablerecyclerview.models.ExpandableFilter;
+import com.thoughtbot.expandablerecyclerview.models.ExpandableGroup;
+import com.thoughtbot.expandablerecyclerview.models.ExpandableList;
+import com.thoughtbot.expandablerecyclerview.models.ExpandableListPosition;
+import com.thoughtbot.expandablerecyclerview.models.FlattenedSnapshot;
+import com.thoughtbot.expandablerecyclerview.models.PackedBitSet;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.Executor;
+
+/**
+ * 为 {@link ExpandableRecyclerViewAdapter#setBackgroundSnapshotsEnabled(boolean)} 维护发布给 RecyclerView 的
+ * {@link FlattenedSnapshot}。
+ * <p>
+ * 展开状态或数据变化时，{@link ExpandableList} 立即更新，对应的范围通知按发生顺序暂存；快照在后台线程重建，
+ * 完成后在主线程一次性替换并依次发出暂存的通知，所以 RecyclerView 看到的数据与通知始终一致。
+ * 组列表本身是原地修改的，快照引用的是它的副本：副本在组被增删/移动或列表被替换之后的第一次构建时复制，
+ * 之后的构建共用同一个副本；副本变化时同步重建，保证已发布的快照与当前的组列表一致。
+ * <p>
+ * 过滤模式下快照只包含匹配的行，模型中的平面位置不再对应 RecyclerView 中的位置，暂存的结构变化无法重放；
+ * 此时替换快照时按（组，子项）顺序归并新旧快照，得出最少的插入/删除/变化通知。
+ */
+class SnapshotPublisher implements ListUpdateCallback {
+
+    private static final int INSERTED = 0;
+    private static final int REMOVED = 1;
+    private static final int CHANGED = 2;
+    private static final int MOVED = 3;
+
+    /**
+     * 过滤时每检查这么多组确认一次是否已被新的查询取代
+     */
+    private static final int CANCEL_CHECK_INTERVAL = 64;
+
+    private final ExpandableRecyclerViewAdapter adapter;
+    private final ExpandableList expandableList;
+    private final Handler mainHandler = new Handler(Looper.getMainLooper());
+    private Executor executor;
+
+    private FlattenedSnapshot snapshot;
+    private int maxScheduledGeneration;
+
+    /**
+     * 构建快照所用的组列表副本，以及复制它时的 {@link ExpandableList#groups}，见 {@link #getSnapshotGroups()}
+     */
+    private List<? extends ExpandableGroup> snapshotGroups;
+    private List<? extends ExpandableGroup> snapshotGroupsSource;
+
+    /**
+     * 暂存的通知，每 3 个 int 为一条：类型、位置、数量（移动时为目标位置）
+     */
+    private int[] pendingOps = new int[24];
+    private int pendingOpCount;
+    private final List<Object> pendingPayloads = new ArrayList<>();
+    private boolean pendingDataSetChanged;
+    /**
+     * 正在分发差异结果时只暂存通知，由 {@link #publish(DiffUtil.DiffResult, FlattenedSnapshot)} 统一替换
+     */
+    private boolean dispatchingDiff;
+    /**
+     * 组或子项被增删/移动后正在发出通知，只暂存通知，由 {@link #publishNow()} 统一替换
+     */
+    private boolean mutating;
+
+    /**
+     * 下次替换快照时归并新旧快照得出通知，不再重放暂存的结构变化
+     */
+    private boolean diffOnSwap;
+    /**
+     * {@link #diffOnSwap} 期间内容变化的行，以打包位置暂存，替换快照后按新快照中的位置通知
+     */
+    private long[] pendingChangedRows = new long[16];
+    private int pendingChangedCount;
+    private final List<Object> pendingChangedPayloads = new ArrayList<>();
+
+    private ExpandableFilter filter;
+    /**
+     * 已发布的查询，没有过滤时为 null
+     */
+    private CharSequence query;
+    /**
+     * 已发布的过滤结果，格式见 {@link FlattenedSnapshot#build(List, PackedBitSet, int[][])}
+     */
+    private int[][] visibleChildren;
+    /**
+     * 计算 {@link #visibleChildren} 时的组列表，只有列表没有被替换时才能在上一次的结果中继续筛选
+     */
+    private List<? extends ExpandableGroup> filteredGroups;
+    /**
+     * 最近一次请求的过滤，可能尚未完成
+     */
+    private ExpandableFilter requestedFilter;
+    private CharSequence requestedQuery;
+    /**
+     * 最近一次过滤的序号，后台线程据此放弃已被取代的过滤
+     */
+    private volatile int filterGeneration;
+    /**
+     * 后台过滤读取组和子项列表期间持有，见 {@link #prepareMutation()}
+     */
+    private final Object filterLock = new Object();
+    /**
+     * 已提交到后台、结果尚未发布的过滤，只在主线程访问
+     */
+    private boolean filterPending;
+
+    SnapshotPublisher(ExpandableRecyclerViewAdapter adapter, ExpandableList expandableList) {
+        this.adapter = adapter;
+        this.expandableList = expandableList;
+        snapshot = FlattenedSnapshot.build(getSnapshotGroups(), expandableList.copyExpandState());
+    }
+
+    void setExecutor(Executor executor) {
+        this.executor = executor;
+    }
+
+    FlattenedSnapshot getSnapshot() {
+        return snapshot;
+    }
+
+    boolean isFiltering() {
+        return filter != null;
+    }
+
+    @Override
+    public void onInserted(int position, int count) {
+        onStructureChanged(INSERTED, position, count);
+    }
+
+    @Override
+    public void onRemoved(int position, int count) {
+        onStructureChanged(REMOVED, position, count);
+    }
+
+    @Override
+    public void onMoved(int fromPosition, int toPosition) {
+        onStructureChanged(MOVED, fromPosition, toPosition);
+    }
+
+    private void onStructureChanged(int type, int position, int count) {
+        if (diffOnSwap || visibleChildren != null) {
+            diffOnSwap = true;
+        } else {
+            enqueue(type, position, count, null);
+        }
+        if (!dispatchingDiff && !mutating) {
+            scheduleRebuild();
+        }
+    }
+
+    /**
+     * 没有暂存的结构变化时，快照与模型的位置一致，直接通知；过滤时先换算成快照中的位置
+     */
+    @Override
+    public void onChanged(int position, int count, Object payload) {
+        if (diffOnSwap || visibleChildren != null) {
+            for (int i = 0; i < count; i++) {
+                long packedPosition = expandableList.getUnflattenedPackedPosition(position + i);
+                if (diffOnSwap || pendingDataSetChanged) {
+                    enqueueChangedRow(packedPosition, payload);
+                    continue;
+                }
+                int flatPos = snapshot.getFlatPosition(packedPosition);
+                if (flatPos >= 0) {
+                    adapter.notifyItemChanged(flatPos, payload);
+                }
+            }
+            return;
+        }
+        if (pendingOpCount == 0 && !pendingDataSetChanged && !dispatchingDiff && !mutating) {
+            adapter.notifyItemRangeChanged(position, count, payload);
+            return;
+        }
+        enqueue(CHANGED, position, count, payload);
+    }
+
+    void onDataSetChanged() {
+        // 组列表可能被直接修改过
+        snapshotGroups = null;
+        pendingOpCount = 0;
+        pendingPayloads.clear();
+        pendingChangedCount = 0;
+        pendingChangedPayloads.clear();
+        pendingDataSetChanged = true;
+        if (requestedFilter != null) {
+            // 子项可能已经变化，上一次的结果不能再作为继续筛选的基础
+            filteredGroups = null;
+            filter(requestedFilter, requestedQuery);
+        } else {
+            scheduleRebuild();
+        }
+    }
+
+    /**
+     * 暂存差异结果的通知后直接发布 {@link ExpandableListDiffer} 在后台线程算出的新快照
+     */
+    @SuppressWarnings("unchecked")
+    void publish(DiffUtil.DiffResult result, FlattenedSnapshot newSnapshot) {
+        // 使尚未完成的后台重建失效
+        maxScheduledGeneration++;
+        // 新快照引用的是新组列表的副本，之后的构建继续使用它
+        snapshotGroups = (List<? extends ExpandableGroup>) newSnapshot.getGroups();
+        snapshotGroupsSource = expandableList.groups;
+        if (filter != null) {
+            // 差异是按未过滤的列表计算的，过滤时对新的组列表同步重新过滤
+            pendingDataSetChanged = true;
+            swap(filterNow());
+            return;
+        }
+        dispatchingDiff = true;
+        try {
+            result.dispatchUpdatesTo(this);
+        } finally {
+            dispatchingDiff = false;
+        }
+        swap(newSnapshot);
+    }
+
+    /**
+     * 在后台线程按 {@code query} 过滤，完成后在主线程发布结果。查询是上一次的延续时只在上一次的结果中筛选，
+     * 尚未完成的旧查询被放弃
+     *
+     * @param filter 匹配规则，为 null 时取消过滤
+     * @param query  查询，为 null 或空时取消过滤
+     */
+    void filter(final ExpandableFilter filter, final CharSequence query) {
+        final int runGeneration = ++filterGeneration;
+        if (filter == null || query == null || query.length() == 0) {
+            requestedFilter = null;
+            requestedQuery = null;
+            filterPending = false;
+            if (this.filter == null) {
+                return;
+            }
+            this.filter = null;
+            this.query = null;
+            visibleChildren = null;
+            filteredGroups = null;
+            diffOnSwap = true;
+            scheduleRebuild();
+            return;
+        }
+        requestedFilter = filter;
+        requestedQuery = query;
+        final List<? extends ExpandableGroup> groups = getSnapshotGroups();
+        final PackedBitSet expandedGroups = expandableList.copyExpandState();
+        final int modCount = expandableList.getModificationCount();
+        final int[][] previous = filter == this.filter && groups == filteredGroups
+                && filter.isNarrowing(this.query, query) ? visibleChildren : null;
+
+        filterPending = true;
+        getExecutor().execute(new Runnable() {
+            @Override
+            public void run() {
+                final int[][] matches;
+                final FlattenedSnapshot newSnapshot;
+                synchronized (filterLock) {
+                    matches = computeMatches(filter, groups, query, previous, runGeneration);
+                    if (matches == null) {
+                        return;
+                    }
+                    autoExpand(expandedGroups, matches);
+                    newSnapshot = FlattenedSnapshot.build(groups, expandedGroups, matches);
+                }
+                mainHandler.post(new Runnable() {
+                    @Override
+                    public void run() {
+                        if (runGeneration != filterGeneration) {
+                            return;
+                        }
+                        filterPending = false;
+                        if (getSnapshotGroups() != groups || expandableList.getModificationCount() != modCount) {
+                            // 过滤期间列表又被展开/折叠或修改过，基于当前状态重新过滤
+                            filter(filter, query);
+                            return;
+                        }
+                        applyFilterResult(filter, query, groups, matches);
+                        // 使尚未完成的后台重建失效
+                        maxScheduledGeneration++;
+                        diffOnSwap = true;
+                        swap(newSnapshot);
+                    }
+                });
+            }
+        });
+    }
+
+    /**
+     * 在主线程同步重建并替换快照，发出暂存的通知
+     */
+    void publishNow() {
+        mutating = false;
+        maxScheduledGeneration++;
+        swap(FlattenedSnapshot.build(getSnapshotGroups(), expandableList.copyExpandState(), visibleChildren));
+    }
+
+    /**
+     * 组即将被增删/移动时在 {@link #prepareMutation()} 之后调用，之后构建的快照使用新的副本
+     */
+    void onGroupsMutated() {
+        snapshotGroups = null;
+    }
+
+    /**
+     * 组列表在主线程原地修改，后台构建只能读取副本。组没有被增删/移动、列表也没有被替换时复用上一次的副本，
+     * 所以副本的引用相同即说明组的索引没有变化
+     *
+     * @return 当前组列表的副本，只在主线程调用
+     */
+    private List<? extends ExpandableGroup> getSnapshotGroups() {
+        if (snapshotGroups == null || snapshotGroupsSource != expandableList.groups) {
+            snapshotGroupsSource = expandableList.groups;
+            snapshotGroups = new ArrayList<>(snapshotGroupsSource);
+        }
+        return snapshotGroups;
+    }
+
+    /**
+     * 组或子项即将被增删/移动时调用。归并按（组，子项）的索引比较新旧快照，索引平移之后无法再归并，
+     * 所以先把等待归并的快照同步发布。子项列表是原地修改的，正在读取它们的后台过滤先被取消
+     */
+    void prepareMutation() {
+        if (filterPending) {
+            cancelPendingFilter();
+        }
+        if (diffOnSwap) {
+            publishNow();
+        }
+    }
+
+    /**
+     * 取消尚未发布的过滤并等待正在运行的过滤退出，最多再检查 {@link #CANCEL_CHECK_INTERVAL} 个组。
+     * 修改完成之后按最近一次请求的查询重新过滤
+     */
+    private void cancelPendingFilter() {
+        filterGeneration++;
+        synchronized (filterLock) {
+            // 只等待持有锁的后台过滤退出
+        }
+        filterPending = false;
+        final ExpandableFilter filter = requestedFilter;
+        final CharSequence query = requestedQuery;
+        mainHandler.post(new Runnable() {
+            @Override
+            public void run() {
+                if (!filterPending && filter == requestedFilter && query == requestedQuery) {
+                    filter(filter, query);
+                }
+            }
+        });
+    }
+
+    /**
+     * 组或子项被增删/移动之后、发出通知之前调用，之后的通知暂存到 {@link #publishNow()}。
+     * 过滤结果按组和子项的索引保存，无法随之平移，过滤时改为按已发布的查询同步重新过滤并整体刷新
+     *
+     * @return 如果正在过滤，已经整体刷新，调用方不再需要发出通知
+     */
+    boolean onDataMutated() {
+        if (filter == null) {
+            mutating = true;
+            return false;
+        }
+        maxScheduledGeneration++;
+        pendingDataSetChanged = true;
+        swap(filterNow());
+        return true;
+    }
+
+    /**
+     * 在主线程按已发布的查询对当前的组列表完整地重新过滤，用于组列表被整体替换时。
+     * 尚未完成的新查询不受影响，完成时发现组列表已经变化会自行重新过滤
+     */
+    private FlattenedSnapshot filterNow() {
+        List<? extends ExpandableGroup> groups = getSnapshotGroups();
+        int[][] matches = computeMatches(filter, groups, query, null, -1);
+        applyFilterResult(filter, query, groups, matches);
+        return FlattenedSnapshot.build(groups, expandableList.copyExpandState(), matches);
+    }
+
+    /**
+     * 记录过滤结果，并把自动展开的组写回模型，之后折叠这些组时模型与快照一致
+     */
+    private void applyFilterResult(ExpandableFilter filter, CharSequence query,
+                                   List<? extends ExpandableGroup> groups, int[][] matches) {
+        this.filter = filter;
+        this.query = query;
+        visibleChildren = matches;
+        filteredGroups = groups;
+        int[] expanded = new int[matches.length];
+        int count = 0;
+        for (int i = 0; i < matches.length; i++) {
+            if (hasChildMatches(matches[i]) && !expandableList.isGroupExpanded(i)) {
+                expanded[count++] = i;
+            }
+        }
+        if (count > 0) {
+            expandableList.setGroupsExpanded(expanded, count, true);
+        }
+    }
+
+    private static void autoExpand(PackedBitSet expandedGroups, int[][] matches) {
+        for (int i = 0; i < matches.length; i++) {
+            if (hasChildMatches(matches[i])) {
+                expandedGroups.set(i);
+            }
+        }
+    }
+
+    /**
+     * @return 组是因为子项匹配而可见（需要自动展开）时为 true
+     */
+    private static boolean hasChildMatches(int[] children) {
+        return children != null && children != FlattenedSnapshot.ALL_CHILDREN;
+    }
+
+    /**
+     * @param previous      上一次的结果，不为 null 时只检查其中仍然可见的组和子项
+     * @param runGeneration 本次过滤的序号，被新的过滤取代时返回 null；为 -1 时不检查
+     * @return 每组的过滤结果，格式见 {@link FlattenedSnapshot#build(List, PackedBitSet, int[][])}
+     */
+    private int[][] computeMatches(ExpandableFilter filter, List<? extends ExpandableGroup> groups,
+                                   CharSequence query, int[][] previous, int runGeneration) {
+        int groupCount = groups.size();
+        int[][] matches = new int[groupCount][];
+        int[] buffer = new int[16];
+        for (int i = 0; i < groupCount; i++) {
+            if (runGeneration >= 0 && i % CANCEL_CHECK_INTERVAL == 0 && runGeneration != filterGeneration) {
+                return null;
+            }
+            int[] candidates = previous == null ? FlattenedSnapshot.ALL_CHILDREN : previous[i];
+            if (candidates == null) {
+                continue;
+            }
+            ExpandableGroup group = groups.get(i);
+            // 上一次只因子项可见的组，这一次组本身也不会匹配
+            boolean allCandidates = candidates == FlattenedSnapshot.ALL_CHILDREN;
+            if (allCandidates && filter.matchesGroup(group, query)) {
+                matches[i] = FlattenedSnapshot.ALL_CHILDREN;
+                continue;
+            }
+            // 尚未加载的懒加载组只按组匹配
+            if (group.getItems() == null) {
+                continue;
+            }
+            int itemCount = group.getItemCount();
+            int candidateCount = allCandidates ? itemCount : candidates.length;
+            int matchCount = 0;
+            for (int j = 0; j < candidateCount; j++) {
+                int childIndex = allCandidates ? j : candidates[j];
+                if (childIndex < itemCount && filter.matchesChild(group, childIndex, query)) {
+                    if (matchCount == buffer.length) {
+                        buffer = Arrays.copyOf(buffer, matchCount * 2);
+                    }
+                    buffer[matchCount++] = childIndex;
+                }
+            }
+            if (matchCount > 0) {
+                matches[i] = Arrays.copyOf(buffer, matchCount);
+            }
+        }
+        return matches;
+    }
+
+    private void enqueue(int type, int position, int count, Object payload) {
+        if (pendingDataSetChanged) {
+            return;
+        }
+        int offset = pendingOpCount * 3;
+        if (offset + 3 > pendingOps.length) {
+            pendingOps = Arrays.copyOf(pendingOps, pendingOps.length * 2);
+        }
+        pendingOps[offset] = type;
+        pendingOps[offset + 1] = position;
+        pendingOps[offset + 2] = count;
+        pendingPayloads.add(payload);
+        pendingOpCount++;
+    }
+
+    private void enqueueChangedRow(long packedPosition, Object payload) {
+        if (pendingDataSetChanged) {
+            return;
+        }
+        if (pendingChangedCount == pendingChangedRows.length) {
+            pendingChangedRows = Arrays.copyOf(pendingChangedRows, pendingChangedCount * 2);
+        }
+        pendingChangedRows[pendingChangedCount++] = packedPosition;
+        pendingChangedPayloads.add(payload);
+    }
+
+    private void scheduleRebuild() {
+        final int runGeneration = ++maxScheduledGeneration;
+        final List<? extends ExpandableGroup> groups = getSnapshotGroups();
+        if (groups != snapshot.getGroups()) {
+            if (filter != null) {
+                pendingDataSetChanged = true;
+                swap(filterNow());
+            } else {
+                swap(FlattenedSnapshot.build(groups, expandableList.copyExpandState()));
+            }
+            return;
+        }
+        final PackedBitSet expandedGroups = expandableList.copyExpandState();
+        final int[][] matches = visibleChildren;
+        getExecutor().execute(new Runnable() {
+            @Override
+            public void run() {
+                final FlattenedSnapshot newSnapshot = FlattenedSnapshot.build(groups, expandedGroups, matches);
+                mainHandler.post(new Runnable() {
+                    @Override
+                    public void run() {
+                        if (runGeneration == maxScheduledGeneration) {
+                            swap(newSnapshot);
+                        }
+                    }
+                });
+            }
+        });
+    }
+
+    private Executor getExecutor() {
+        if (executor == null) {
+            executor = ExpandableListDiffer.getDefaultExecutor();
+        }
+        return executor;
+    }
+
+    private void swap(FlattenedSnapshot newSnapshot) {
+        FlattenedSnapshot oldSnapshot = snapshot;
+        snapshot = newSnapshot;
+        // 归并要求新旧快照引用同一个组列表，否则只能整体刷新
+        if (pendingDataSetChanged || diffOnSwap && oldSnapshot.getGroups() != newSnapshot.getGroups()) {
+            pendingDataSetChanged = false;
+            diffOnSwap = false;
+            pendingOpCount = 0;
+            pendingPayloads.clear();
+            pendingChangedCount = 0;
+            pendingChangedPayloads.clear();
+            adapter.notifyDataSetChanged();
+            return;
+        }
+        if (diffOnSwap) {
+            diffOnSwap = false;
+            pendingOpCount = 0;
+            pendingPayloads.clear();
+            dispatchSnapshotDiff(oldSnapshot, newSnapshot);
+            int changedCount = pendingChangedCount;
+            pendingChangedCount = 0;
+            for (int i = 0; i < changedCount; i++) {
+                int flatPos = newSnapshot.getFlatPosition(pendingChangedRows[i]);
+                if (flatPos >= 0) {
+                    adapter.notifyItemChanged(flatPos, pendingChangedPayloads.get(i));
+                }
+            }
+            pendingChangedPayloads.clear();
+            return;
+        }
+        int opCount = pendingOpCount;
+        pendingOpCount = 0;
+        for (int i = 0; i < opCount; i++) {
+            int offset = i * 3;
+            int position = pendingOps[offset + 1];
+            int count = pendingOps[offset + 2];
+            switch (pendingOps[offset]) {
+                case INSERTED:
+                    adapter.notifyItemRangeInserted(position, count);
+                    break;
+                case REMOVED:
+                    adapter.notifyItemRangeRemoved(position, count);
+                    break;
+                case MOVED:
+                    adapter.notifyItemMoved(position, count);
+                    break;
+                default:
+                    adapter.notifyItemRangeChanged(position, count, pendingPayloads.get(i));
+                    break;
+            }
+        }
+        pendingPayloads.clear();
+    }
+
+    /**
+     * 两个快照的行都按（组，子项）升序排列，一次归并即可得出把旧快照变成新快照的最少插入/删除，
+     * 展开状态变化的组标题发出变化通知。O(新旧快照行数之和)，要求两个快照引用同一个组列表
+     */
+    private void dispatchSnapshotDiff(FlattenedSnapshot oldSnapshot, FlattenedSnapshot newSnapshot) {
+        int oldSize = oldSnapshot.size();
+        int newSize = newSnapshot.size();
+        int oldRow = 0;
+        int newRow = 0;
+        int position = 0;
+        int runType = -1;
+        int runStart = 0;
+        int runCount = 0;
+        while (oldRow < oldSize || newRow < newSize) {
+            long oldKey = oldRow < oldSize ? orderKey(oldSnapshot.getPackedPosition(oldRow)) : Long.MAX_VALUE;
+            long newKey = newRow < newSize ? orderKey(newSnapshot.getPackedPosition(newRow)) : Long.MAX_VALUE;
+            int type;
+            if (oldKey == newKey) {
+                long packedPosition = newSnapshot.getPackedPosition(newRow);
+                int groupIndex = ExpandableListPosition.getPackedPositionGroup(packedPosition);
+                type = ExpandableListPosition.getPackedPositionType(packedPosition) == ExpandableListPosition.GROUP
+                        && oldSnapshot.isGroupExpanded(groupIndex) != newSnapshot.isGroupExpanded(groupIndex)
+                        ? CHANGED : -1;
+                oldRow++;
+                newRow++;
+            } else if (oldKey < newKey) {
+                type = REMOVED;
+                oldRow++;
+            } else {
+                type = INSERTED;
+                newRow++;
+            }
+            if (type == runType) {
+                runCount++;
+            } else {
+                dispatchRun(runType, runStart, runCount);
+                runType = type;
+                runStart = position;
+                runCount = 1;
+            }
+            if (type != REMOVED) {
+                position++;
+            }
+        }
+        dispatchRun(runType, runStart, runCount);
+    }
+
+    private void dispatchRun(int type, int positionStart, int count) {
+        switch (type) {
+            case INSERTED:
+                adapter.notifyItemRangeInserted(positionStart, count);
+                break;
+            case REMOVED:
+                adapter.notifyItemRangeRemoved(positionStart, count);
+                break;
+            case CHANGED:
+                adapter.notifyItemRangeChanged(positionStart, count, null);
+                break;
+            default:
+                break;
+        }
+    }
+
+    /**
+     * @return 行在未过滤的完整列表中的顺序：组标题在前，其后是按索引排列的子项
+     */
+    private static long orderKey(long packedPosition) {
+        long groupIndex = ExpandableListPosition.getPackedPositionGroup(packedPosition);
+        return groupIndex << 32 | (ExpandableListPosition.getPackedPositionChild(packedPosition) + 1L);
+    }
+}
@@ -0,0 +1,214 @@
+package com.thoughtbot.expandablerecyclerview;
+
+import android.graphics.Canvas;
+import android.view.View;
+import android.view.ViewGroup;
+
+import androidx.recyclerview.widget.RecyclerView;
+
+import com.thoughtbot.expandablerecyclerview.models.ExpandableGroup;
+import com.thoughtbot.expandablerecyclerview.models.ExpandableListPosition;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * 把第一个可见行所属组的标题固定绘制在 {@link RecyclerView} 顶部，下一个组的标题到达时把它向上推出。
+ * <p>
+ * 每帧的查找都走适配器的索引：第一个可见行 → 组是一次 {@link ExpandableRecyclerViewAdapter#getPackedPosition(int)}，
+ * 组 → 标题位置是前缀和上的一次查询，都与组数无关。标题通过适配器创建和绑定，按组缓存（LRU），滚动时不会重新创建视图，
+ * 只有适配器数据变化后才重新绑定。
+ * <p>
+ * 用法：{@code new StickyGroupHeaderDecoration(adapter).attachToRecyclerView(recyclerView)}，不再需要时调用
+ * {@link #detachFromRecyclerView()}。只在附加期间监听适配器的变化通知，监听期间适配器不能再调用
+ * {@code setHasStableIds}，所以 {@link ExpandableRecyclerViewAdapter#setStableIdProvider} 要在附加之前调用。
+ * 只用 {@code addItemDecoration} 添加时不监听适配器，每帧都重新绑定标题。
+ * 标题绘制在列表内容之上，组标题的布局需要不透明的背景
+ */
+public class StickyGroupHeaderDecoration extends RecyclerView.ItemDecoration {
+
+    private static final int DEFAULT_CACHE_SIZE = 8;
+
+    private final ExpandableRecyclerViewAdapter<?, ?> adapter;
+    private final LinkedHashMap<ExpandableGroup, Header> headers;
+
+    /**
+     * 适配器每次发出变化通知时递增，缓存的标题绑定时的值不同就需要重新绑定
+     */
+    private int dataVersion;
+    private RecyclerView recyclerView;
+
+    public StickyGroupHeaderDecoration(ExpandableRecyclerViewAdapter<?, ?> adapter) {
+        this(adapter, DEFAULT_CACHE_SIZE);
+    }
+
+    /**
+     * @param adapter   列表的适配器
+     * @param cacheSize 最多缓存多少个组的标题视图
+     */
+    public StickyGroupHeaderDecoration(ExpandableRecyclerViewAdapter<?, ?> adapter, final int cacheSize) {
+        if (cacheSize < 1) {
+            throw new IllegalArgumentException("cacheSize < 1: " + cacheSize);
+        }
+        this.adapter = adapter;
+        headers = new LinkedHashMap<ExpandableGroup, Header>(cacheSize + 1, 1f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<ExpandableGroup, Header> eldest) {
+                return size() > cacheSize;
+            }
+        };
+    }
+
+    private final RecyclerView.AdapterDataObserver dataObserver = new RecyclerView.AdapterDataObserver() {
+        @Override
+        public void onChanged() {
+            dataVersion++;
+        }
+
+        @Override
+        public void onItemRangeChanged(int positionStart, int itemCount) {
+            dataVersion++;
+        }
+
+        @Override
+        public void onItemRangeChanged(int positionStart, int itemCount, Object payload) {
+            dataVersion++;
+        }
+
+        @Override
+        public void onItemRangeInserted(int positionStart, int itemCount) {
+            dataVersion++;
+        }
+
+        @Override
+        public void onItemRangeRemoved(int positionStart, int itemCount) {
+            dataVersion++;
+        }
+
+        @Override
+        public void onItemRangeMoved(int fromPosition, int toPosition, int itemCount) {
+            dataVersion++;
+        }
+    };
+
+    /**
+     * 添加到 {@code recyclerView} 并开始监听适配器的变化通知，已经附加到其他列表时先从那里移除
+     *
+     * @param recyclerView 显示 {@link #adapter} 的列表
+     */
+    public void attachToRecyclerView(RecyclerView recyclerView) {
+        if (this.recyclerView == recyclerView) {
+            return;
+        }
+        detachFromRecyclerView();
+        this.recyclerView = recyclerView;
+        recyclerView.addItemDecoration(this);
+        adapter.registerAdapterDataObserver(dataObserver);
+    }
+
+    /**
+     * 从列表中移除，停止监听适配器并丢弃缓存的标题
+     */
+    public void detachFromRecyclerView() {
+        if (recyclerView == null) {
+            return;
+        }
+        recyclerView.removeItemDecoration(this);
+        adapter.unregisterAdapterDataObserver(dataObserver);
+        recyclerView = null;
+        headers.clear();
+    }
+
+    @Override
+    public void onDrawOver(Canvas c, RecyclerView parent, RecyclerView.State state) {
+        if (parent.getChildCount() == 0 || adapter.getItemCount() == 0) {
+            return;
+        }
+        int top = parent.getPaddingTop();
+        // clipToPadding 为 false 时，内边距里的行不算作第一个可见行
+        int firstChild = 0;
+        while (firstChild < parent.getChildCount() - 1 && parent.getChildAt(firstChild).getBottom() <= top) {
+            firstChild++;
+        }
+        int firstPosition = parent.getChildAdapterPosition(parent.getChildAt(firstChild));
+        if (firstPosition == RecyclerView.NO_POSITION || firstPosition >= adapter.getItemCount()) {
+            return;
+        }
+        int groupIndex = ExpandableListPosition.getPackedPositionGroup(adapter.getPackedPosition(firstPosition));
+        View header = getHeader(parent, groupIndex);
+
+        // 下一个可见组的标题进入固定标题的范围时，把固定标题向上推。只检查与固定标题重叠的几行，
+        // 过滤时被隐藏的组不在屏幕上，不会被当作下一个标题
+        int offset = 0;
+        int headerBottom = top + header.getHeight();
+        for (int i = firstChild + 1; i < parent.getChildCount(); i++) {
+            View child = parent.getChildAt(i);
+            if (child.getTop() >= headerBottom) {
+                break;
+            }
+            int position = parent.getChildAdapterPosition(child);
+            if (position == RecyclerView.NO_POSITION || position >= adapter.getItemCount()) {
+                continue;
+            }
+            if (ExpandableListPosition.getPackedPositionType(adapter.getPackedPosition(position))
+                    == ExpandableListPosition.GROUP) {
+                offset = child.getTop() - headerBottom;
+                break;
+            }
+        }
+
+        int saveCount = c.save();
+        c.translate(parent.getPaddingLeft(), top + offset);
+        header.draw(c);
+        c.restoreToCount(saveCount);
+    }
+
+    private View getHeader(RecyclerView parent, int groupIndex) {
+        ExpandableGroup group = adapter.getGroups().get(groupIndex);
+        int headerPosition = adapter.getFlattenedGroupPositionInView(groupIndex);
+        int viewType = adapter.getItemViewType(headerPosition);
+        Header header = headers.get(group);
+        if (header == null || header.viewType != viewType) {
+            header = new Header(adapter.createViewHolder(parent, viewType), viewType);
+            headers.put(group, header);
+        }
+        // 没有附加时收不到变化通知，每次都重新绑定
+        if (recyclerView == null || header.boundVersion != dataVersion || header.boundPosition != headerPosition) {
+            adapter.bindViewHolder(header.holder, headerPosition);
+            header.boundVersion = dataVersion;
+            header.boundPosition = headerPosition;
+            header.width = -1;
+        }
+        int width = parent.getWidth() - parent.getPaddingLeft() - parent.getPaddingRight();
+        if (header.width != width) {
+            measureAndLayout(parent, header.holder.itemView, width);
+            header.width = width;
+        }
+        return header.holder.itemView;
+    }
+
+    private static void measureAndLayout(RecyclerView parent, View view, int width) {
+        ViewGroup.LayoutParams params = view.getLayoutParams();
+        int heightSpec = params != null && params.height >= 0
+                ? View.MeasureSpec.makeMeasureSpec(params.height, View.MeasureSpec.EXACTLY)
+                : View.MeasureSpec.makeMeasureSpec(parent.getHeight(), View.MeasureSpec.AT_MOST);
+        view.measure(View.MeasureSpec.makeMeasureSpec(width, View.MeasureSpec.EXACTLY), heightSpec);
+        view.layout(0, 0, view.getMeasuredWidth(), view.getMeasuredHeight());
+    }
+
+    /**
+     * 缓存的标题：视图持有者以及它上次绑定时的状态
+     */
+    private static final class Header {
+        final RecyclerView.ViewHolder holder;
+        final int viewType;
+        int boundVersion = -1;
+        int boundPosition = -1;
+        int width = -1;
+
+        Header(RecyclerView.ViewHolder holder, int viewType) {
+            this.holder = holder;
+            this.viewType = viewType;
+        }
+    }
+}
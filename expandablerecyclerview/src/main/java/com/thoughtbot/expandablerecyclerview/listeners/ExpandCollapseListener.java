@@ -1,6 +1,7 @@
 package com.thoughtbot.expandablerecyclerview.listeners;
 
 import com.thoughtbot.expandablerecyclerview.models.ExpandableGroup;
+import com.thoughtbot.expandablerecyclerview.models.ExpandableList;
 
 public interface ExpandCollapseListener {
 
@@ -17,4 +18,25 @@ public interface ExpandCollapseListener {
    * @param itemCount {@link ExpandableGroup} 中子项的总数
    */
   void onGroupCollapsed(int positionStart, int itemCount);
+
+  /**
+   * 批量展开或折叠之后调用，此时 {@code expandableList} 已处于最终状态。默认按组索引升序逐组调用
+   * {@link #onGroupExpanded(int, int)} 或 {@link #onGroupCollapsed(int, int)}：处理到某个组时它之前的组都已回调，
+   * 所以最终状态下的平面位置就是回调时的位置
+   * @param expandableList 展开状态发生变化的列表
+   * @param groupIndexes 展开状态发生变化的组的索引，按升序排列
+   * @param count {@code groupIndexes} 中有效元素的个数
+   */
+  default void onGroupsExpandStateChanged(ExpandableList expandableList, int[] groupIndexes, int count) {
+    for (int i = 0; i < count; i++) {
+      int groupIndex = groupIndexes[i];
+      int positionStart = expandableList.getFlattenedGroupIndex(groupIndex) + 1;
+      int itemCount = expandableList.groups.get(groupIndex).getItemCount();
+      if (expandableList.isGroupExpanded(groupIndex)) {
+        onGroupExpanded(positionStart, itemCount);
+      } else {
+        onGroupCollapsed(positionStart, itemCount);
+      }
+    }
+  }
 }
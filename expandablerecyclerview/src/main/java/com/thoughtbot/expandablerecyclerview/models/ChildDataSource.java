@@ -0,0 +1,36 @@
+package com.thoughtbot.expandablerecyclerview.models;
+
+import android.os.Parcelable;
+
+import java.util.List;
+
+/**
+ * {@link LazyExpandableGroup} 的子项来源，在组第一次展开时被调用
+ */
+public interface ChildDataSource<T extends Parcelable> {
+
+  /**
+   * 开始加载子项。可以在任意线程完成，并在任意线程调用 {@code callback} 的
+   * {@link Callback#onChildrenLoaded(List)} 或 {@link Callback#onLoadFailed(Throwable)} 之一
+   *
+   * @param group    要加载子项的组
+   * @param callback 加载完成后的回调
+   */
+  void loadChildren(LazyExpandableGroup<T> group, Callback<T> callback);
+
+  interface Callback<T> {
+
+    /**
+     * @param children 加载到的子项，数量可以与 {@link LazyExpandableGroup} 预先给出的数量不同
+     */
+    void onChildrenLoaded(List<T> children);
+
+    /**
+     * 加载失败时调用，组回到未加载的状态，可以重新加载。默认什么也不做
+     *
+     * @param error 失败的原因，可以为 null
+     */
+    default void onLoadFailed(Throwable error) {
+    }
+  }
+}
@@ -0,0 +1,36 @@
+package com.thoughtbot.expandablerecyclerview.models;
+
+/**
+ * 过滤模式（{@code ExpandableRecyclerViewAdapter#filter(CharSequence)}）的匹配规则，在后台线程调用。
+ * <p>
+ * 组本身匹配时显示整个组，展开状态保持不变；否则只显示匹配的子项，并自动展开这些组；组和子项都不匹配的组被隐藏。
+ * 尚未加载完成的 {@link LazyExpandableGroup} 只按组匹配
+ */
+public abstract class ExpandableFilter {
+
+  /**
+   * @param group 组
+   * @param query 当前查询
+   * @return 组本身是否匹配
+   */
+  public abstract boolean matchesGroup(ExpandableGroup group, CharSequence query);
+
+  /**
+   * @param group      子项所属的组，它本身不匹配
+   * @param childIndex 子项在组内的索引
+   * @param query      当前查询
+   * @return 子项是否匹配
+   */
+  public abstract boolean matchesChild(ExpandableGroup group, int childIndex, CharSequence query);
+
+  /**
+   * 新查询的匹配结果是否一定包含在旧查询的结果中。是则只在上一次的结果中继续筛选，不再检查已经被过滤掉的组和子项
+   *
+   * @param previousQuery 上一次的查询
+   * @param query         新的查询
+   * @return 默认在新查询以旧查询开头时返回 true，适用于子串或前缀匹配
+   */
+  public boolean isNarrowing(CharSequence previousQuery, CharSequence query) {
+    return query.toString().startsWith(previousQuery.toString());
+  }
+}
@@ -8,7 +8,7 @@ import java.util.List;
 /**
  * {@link ExpandableGroup} 的支持数据对象
  */
-public class ExpandableGroup<T extends Parcelable> implements Parcelable {
+public class ExpandableGroup<T extends Parcelable> implements Parcelable, ExpandableGroupModel {
   private String title;
   private List<T> items;
 
@@ -25,6 +25,58 @@ public class ExpandableGroup<T extends Parcelable> implements Parcelable {
     return items;
   }
 
+  /**
+   * 替换子项，供延迟加载子项的子类使用
+   *
+   * @param items 新的子项
+   */
+  protected void setItems(List<T> items) {
+    this.items = items;
+  }
+
+  /**
+   * 插入子项。由 {@code ExpandableRecyclerViewAdapter#addChild} 调用，按子项索引保存状态的子类应覆盖以同步平移
+   *
+   * @param childIndex 新子项的索引，可以等于子项数
+   * @param item       新子项
+   * @throws IllegalStateException 如果子项尚未加载
+   */
+  public void insertItem(int childIndex, T item) {
+    checkItemsLoaded();
+    items.add(childIndex, item);
+  }
+
+  /**
+   * 删除子项，见 {@link #insertItem(int, Parcelable)}
+   *
+   * @param childIndex 要删除的子项的索引
+   * @return 被删除的子项
+   * @throws IllegalStateException 如果子项尚未加载
+   */
+  public T removeItem(int childIndex) {
+    checkItemsLoaded();
+    return items.remove(childIndex);
+  }
+
+  /**
+   * 移动子项，见 {@link #insertItem(int, Parcelable)}
+   *
+   * @param fromChildIndex 子项原来的索引
+   * @param toChildIndex   子项移动后的索引
+   * @throws IllegalStateException 如果子项尚未加载
+   */
+  public void moveItem(int fromChildIndex, int toChildIndex) {
+    checkItemsLoaded();
+    items.add(toChildIndex, items.remove(fromChildIndex));
+  }
+
+  private void checkItemsLoaded() {
+    if (items == null) {
+      throw new IllegalStateException("Children of " + title + " are not loaded");
+    }
+  }
+
+  @Override
   public int getItemCount() {
     return items == null ? 0 : items.size();
   }
@@ -39,12 +91,19 @@ public class ExpandableGroup<T extends Parcelable> implements Parcelable {
 
   protected ExpandableGroup(Parcel in) {
     title = in.readString();
-    byte hasItems = in.readByte();
+    int header = in.readInt();
+    if (header == ItemsParcelCodec.MAGIC) {
+      items = ItemsParcelCodec.readItems(in, getClass().getClassLoader());
+      return;
+    }
+    // 旧格式：header 是 writeByte 写入的 hasItems，空列表时没有写入类型
     int size = in.readInt();
-    if (hasItems == 0x01) {
+    if (header == 0x01) {
       items = new ArrayList<T>(size);
-      Class<?> type = (Class<?>) in.readSerializable();
-      in.readList(items, type.getClassLoader());
+      ClassLoader loader = size > 0
+          ? ((Class<?>) in.readSerializable()).getClassLoader()
+          : getClass().getClassLoader();
+      in.readList(items, loader);
     } else {
       items = null;
     }
@@ -55,21 +114,13 @@ public class ExpandableGroup<T extends Parcelable> implements Parcelable {
     return 0;
   }
 
+  /**
+   * 子项类型相同时只写一次类型，再逐个写入子项本身，见 {@link ItemsParcelCodec}
+   */
   @Override
   public void writeToParcel(Parcel dest, int flags) {
     dest.writeString(title);
-    if (items == null) {
-      dest.writeByte((byte) (0x00));
-      dest.writeInt(0);
-    } else {
-      dest.writeByte((byte) (0x01));
-      dest.writeInt(items.size());
-      if (items.size() > 0) {
-        final Class<?> objectsType = items.get(0).getClass();
-        dest.writeSerializable(objectsType);
-      }
-      dest.writeList(items);
-    }
+    ItemsParcelCodec.writeItems(dest, items);
   }
 
   @SuppressWarnings("unused")
@@ -0,0 +1,147 @@
+package com.thoughtbot.expandablerecyclerview.models;
+
+import android.os.BadParcelableException;
+import android.os.Parcel;
+import android.os.Parcelable;
+
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * {@link ExpandableGroup} 子项列表的 Parcel 编码。
+ * <p>
+ * 格式：魔数 {@link #MAGIC}、版本号、模式，子项类型相同时只写一次类名，然后用 {@link Parcel#writeTypedList(List)}
+ * 逐个写入子项本身，读取时只查找一次 {@link Parcelable.Creator} 并用 {@link Parcel#createTypedArrayList(Parcelable.Creator)}
+ * 批量创建。类型不同的子项退回 {@link Parcel#writeList(List)}。
+ */
+final class ItemsParcelCodec {
+
+  /**
+   * 格式标记，旧格式在同一位置写的是 0 或 1（hasItems），不会与之混淆
+   */
+  static final int MAGIC = 0x45474331;
+  static final int VERSION = 1;
+
+  private static final int ITEMS_NULL = 0;
+  private static final int ITEMS_TYPED = 1;
+  private static final int ITEMS_MIXED = 2;
+
+  /**
+   * 按 ClassLoader 分开缓存，不同的 ClassLoader 可以加载同名的不同类
+   */
+  private static final Map<ClassLoader, Map<String, Parcelable.Creator<?>>> sCreators = new HashMap<>();
+
+  private ItemsParcelCodec() {
+  }
+
+  static void writeItems(Parcel dest, List<? extends Parcelable> items) {
+    dest.writeInt(MAGIC);
+    dest.writeInt(VERSION);
+    if (items == null) {
+      dest.writeInt(ITEMS_NULL);
+      return;
+    }
+    Class<?> type = getCommonType(items);
+    if (type == null && !items.isEmpty()) {
+      dest.writeInt(ITEMS_MIXED);
+      dest.writeList(items);
+      return;
+    }
+    dest.writeInt(ITEMS_TYPED);
+    if (type == null) {
+      dest.writeString(null);
+      return;
+    }
+    dest.writeString(type.getName());
+    dest.writeTypedList(items);
+  }
+
+  /**
+   * 在 {@link #MAGIC} 已经读出之后调用
+   *
+   * @param loader 用于加载子项类型的 ClassLoader
+   */
+  @SuppressWarnings("unchecked")
+  static <T> List<T> readItems(Parcel in, ClassLoader loader) {
+    int version = in.readInt();
+    if (version > VERSION) {
+      throw new BadParcelableException("Unsupported ExpandableGroup parcel version " + version);
+    }
+    switch (in.readInt()) {
+      case ITEMS_NULL:
+        return null;
+      case ITEMS_MIXED:
+        List<T> items = new ArrayList<>();
+        in.readList(items, loader);
+        return items;
+      default:
+        String typeName = in.readString();
+        if (typeName == null) {
+          return new ArrayList<>();
+        }
+        return in.createTypedArrayList((Parcelable.Creator<T>) getCreator(typeName, loader));
+    }
+  }
+
+  /**
+   * @return 所有非 null 子项共同的类型，如果列表为空、全为 null 或类型不同则返回 null
+   */
+  private static Class<?> getCommonType(List<? extends Parcelable> items) {
+    Class<?> type = null;
+    for (int i = 0; i < items.size(); i++) {
+      Parcelable item = items.get(i);
+      if (item == null) {
+        continue;
+      }
+      if (type == null) {
+        type = item.getClass();
+      } else if (type != item.getClass()) {
+        return null;
+      }
+    }
+    return type;
+  }
+
+  /**
+   * 与 {@link Parcel#readParcelable(ClassLoader)} 相同：先不初始化地加载类，确认它实现了 {@link Parcelable}
+   * 之后才读取 CREATOR，避免 Parcel 中的任意类名触发其他类的静态初始化
+   */
+  private static Parcelable.Creator<?> getCreator(String typeName, ClassLoader loader) {
+    synchronized (sCreators) {
+      Map<String, Parcelable.Creator<?>> creators = sCreators.get(loader);
+      if (creators == null) {
+        creators = new HashMap<>();
+        sCreators.put(loader, creators);
+      }
+      Parcelable.Creator<?> creator = creators.get(typeName);
+      if (creator != null) {
+        return creator;
+      }
+      try {
+        Class<?> type = Class.forName(typeName, false, loader);
+        if (!Parcelable.class.isAssignableFrom(type)) {
+          throw new BadParcelableException("Parcelable protocol requires subclassing from Parcelable on "
+              + typeName);
+        }
+        Field field = type.getField("CREATOR");
+        if ((field.getModifiers() & Modifier.STATIC) == 0
+            || !Parcelable.Creator.class.isAssignableFrom(field.getType())) {
+          throw new BadParcelableException("Parcelable protocol requires a static Parcelable.Creator "
+              + "object called CREATOR on " + typeName);
+        }
+        creator = (Parcelable.Creator<?>) field.get(null);
+      } catch (ClassNotFoundException | NoSuchFieldException | IllegalAccessException e) {
+        throw new BadParcelableException(e);
+      }
+      if (creator == null) {
+        throw new BadParcelableException("Parcelable protocol requires a non-null CREATOR on " + typeName);
+      }
+      creators.put(typeName, creator);
+      return creator;
+    }
+  }
+}
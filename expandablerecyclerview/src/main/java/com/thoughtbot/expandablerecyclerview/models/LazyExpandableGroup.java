@@ -0,0 +1,131 @@
+package com.thoughtbot.expandablerecyclerview.models;
+
+import android.os.Parcelable;
+
+import java.util.List;
+
+/**
+ * 子项延迟加载的 {@link ExpandableGroup}。
+ * <p>
+ * 创建时只需要给出子项数量，在第一次展开时才通过 {@link ChildDataSource} 加载真正的子项。加载完成之前，
+ * {@link #getItemCount()} 返回预先给出的数量，适配器为这些位置绑定占位行。加载失败或迟迟没有回调时，
+ * 可以用 {@link #cancelLoad()} 放弃这次加载后重新加载。
+ */
+public class LazyExpandableGroup<T extends Parcelable> extends ExpandableGroup<T> {
+
+  private final ChildDataSource<T> dataSource;
+  private final int expectedItemCount;
+  private boolean loading;
+  private boolean loaded;
+  private boolean loadFailed;
+  private Throwable loadError;
+  /**
+   * 当前加载的回调，用来识别已被取消的加载迟到的结果
+   */
+  private ChildDataSource.Callback<T> pendingLoad;
+
+  /**
+   * @param title             组标题
+   * @param expectedItemCount 子项数量，在加载完成前用于确定占位行的数量
+   * @param dataSource        子项来源
+   */
+  public LazyExpandableGroup(String title, int expectedItemCount, ChildDataSource<T> dataSource) {
+    super(title, null);
+    this.expectedItemCount = expectedItemCount;
+    this.dataSource = dataSource;
+  }
+
+  /**
+   * @return 如果子项已经加载完成为 true
+   */
+  public boolean isLoaded() {
+    return loaded;
+  }
+
+  /**
+   * @return 如果正在加载子项为 true
+   */
+  public boolean isLoading() {
+    return loading;
+  }
+
+  /**
+   * @return 如果上一次加载失败、尚未重新加载为 true
+   */
+  public boolean isLoadFailed() {
+    return loadFailed;
+  }
+
+  /**
+   * @return 上一次加载失败的原因，可能为 null
+   */
+  public Throwable getLoadError() {
+    return loadError;
+  }
+
+  /**
+   * @param callback 传给 {@link #load(ChildDataSource.Callback)} 的回调
+   * @return 如果 {@code callback} 属于正在进行、没有被取消的加载为 true
+   */
+  public boolean isPendingLoad(ChildDataSource.Callback<T> callback) {
+    return loading && pendingLoad == callback;
+  }
+
+  @Override
+  public int getItemCount() {
+    return loaded ? super.getItemCount() : expectedItemCount;
+  }
+
+  /**
+   * 开始加载子项，已经在加载或已经加载完成时没有任何作用
+   *
+   * @param callback 加载完成后的回调，可能在任意线程调用
+   * @return 如果这次调用开始了加载为 true
+   */
+  public boolean load(ChildDataSource.Callback<T> callback) {
+    if (loading || loaded) {
+      return false;
+    }
+    loading = true;
+    loadFailed = false;
+    loadError = null;
+    pendingLoad = callback;
+    dataSource.loadChildren(this, callback);
+    return true;
+  }
+
+  /**
+   * 放弃正在进行的加载，之后可以重新调用 {@link #load(ChildDataSource.Callback)}。
+   * 被放弃的加载之后的回调应当由调用方通过 {@link #isPendingLoad(ChildDataSource.Callback)} 忽略
+   */
+  public void cancelLoad() {
+    loading = false;
+    pendingLoad = null;
+  }
+
+  /**
+   * 在主线程记录加载失败，组回到未加载的状态
+   *
+   * @param error 失败的原因，可以为 null
+   */
+  public void setLoadFailed(Throwable error) {
+    loading = false;
+    pendingLoad = null;
+    loadFailed = true;
+    loadError = error;
+  }
+
+  /**
+   * 在主线程设置加载到的子项
+   *
+   * @param children 加载到的子项
+   */
+  public void setLoadedItems(List<T> children) {
+    setItems(children);
+    loading = false;
+    pendingLoad = null;
+    loadFailed = false;
+    loadError = null;
+    loaded = true;
+  }
+}
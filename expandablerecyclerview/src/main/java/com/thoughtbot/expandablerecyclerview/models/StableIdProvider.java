@@ -0,0 +1,25 @@
+package com.thoughtbot.expandablerecyclerview.models;
+
+/**
+ * 为组和子项提供稳定的 id。适配器把组 id 和子项 id 打包成一个 long 作为 RecyclerView 的 item id，
+ * 布局与 {@link ExpandableListPosition#packChildPosition(int, int)} 相同，所以组 id 与子项 id 的取值空间互不冲突。
+ * 组 id 只有 31 位可用，负数会被截断成与其他 id 相同的值，因此两个 id 都必须是非负数，否则适配器抛出
+ * {@link IllegalArgumentException}。id 来自更宽的取值（如数据库的 long 主键）时需要先映射到这个范围内
+ */
+public interface StableIdProvider {
+
+  /**
+   * @param group 组
+   * @return 组的 id，在整个列表中唯一，取值范围为 [0, {@link Integer#MAX_VALUE}]
+   */
+  int getGroupId(ExpandableGroup group);
+
+  /**
+   * 尚未加载完成的 {@link LazyExpandableGroup} 也会调用，此时 {@code group.getItems()} 为 null
+   *
+   * @param group      子项所属的组
+   * @param childIndex 子项在组内的索引
+   * @return 子项的 id，在同一个组内唯一，取值范围为 [0, {@link Integer#MAX_VALUE}]
+   */
+  int getChildId(ExpandableGroup group, int childIndex);
+}
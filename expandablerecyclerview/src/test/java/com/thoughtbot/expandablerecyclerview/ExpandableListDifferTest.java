@@ -0,0 +1,114 @@
+package com.thoughtbot.expandablerecyclerview;
+
+import androidx.recyclerview.widget.ListUpdateCallback;
+
+import com.thoughtbot.expandablerecyclerview.models.ChildDataSource;
+import com.thoughtbot.expandablerecyclerview.models.ExpandableGroup;
+import com.thoughtbot.expandablerecyclerview.models.ExpandableListPosition;
+import com.thoughtbot.expandablerecyclerview.models.LazyExpandableGroup;
+import com.thoughtbot.expandablerecyclerview.models.PackedBitSet;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * 适配器继承自 RecyclerView.Adapter，构造和通知都依赖 Android 框架类，所以用 Robolectric 运行
+ */
+@RunWith(RobolectricTestRunner.class)
+public class ExpandableListDifferTest {
+
+    @Test
+    public void setGroupsWithExpandedUnloadedLazyGroup() {
+        LazyExpandableGroup<TestItem> lazy = new LazyExpandableGroup<>("lazy", 3, new ChildDataSource<TestItem>() {
+            @Override
+            public void loadChildren(LazyExpandableGroup<TestItem> group, Callback<TestItem> callback) {
+            }
+        });
+        ExpandableGroup<TestItem> a = new ExpandableGroup<>("a", TestItem.list("a1", "a2"));
+        ExpandableGroup<TestItem> b = new ExpandableGroup<>("b", TestItem.list("b1"));
+        List<ExpandableGroup> oldGroups = Arrays.<ExpandableGroup>asList(a, lazy);
+        List<ExpandableGroup> newGroups = Arrays.<ExpandableGroup>asList(lazy, b);
+        PackedBitSet oldExpanded = new PackedBitSet(2);
+        oldExpanded.set(0);
+        oldExpanded.set(1);
+
+        ExpandableListDiffer.Result result =
+                ExpandableListDiffer.calculate(new TestAdapter(oldGroups), oldGroups, oldExpanded, newGroups);
+
+        assertTrue(result.newExpanded.get(0));
+        assertFalse(result.newExpanded.get(1));
+        // lazy 的标题和 3 个占位行，b 的标题
+        assertEquals(5, result.newSnapshot.size());
+        List<String> oldRows = rows(oldGroups, oldExpanded);
+        List<String> newRows = rows(newGroups, result);
+        for (int i = 0; i < newRows.size(); i++) {
+            int oldPosition = result.diffResult.convertNewPositionToOld(i);
+            if (oldPosition >= 0) {
+                assertEquals(oldRows.get(oldPosition), newRows.get(i));
+            }
+        }
+        // 占位行按索引保留
+        assertEquals("lazy/0", oldRows.get(result.diffResult.convertNewPositionToOld(1)));
+        assertEquals(newRows.size(), applyCount(oldRows.size(), result));
+    }
+
+    private static List<String> rows(List<ExpandableGroup> groups, PackedBitSet expanded) {
+        List<String> rows = new ArrayList<>();
+        for (int i = 0; i < groups.size(); i++) {
+            rows.add(groups.get(i).getTitle());
+            if (expanded.get(i)) {
+                for (int j = 0; j < groups.get(i).getItemCount(); j++) {
+                    rows.add(groups.get(i).getTitle() + "/" + j);
+                }
+            }
+        }
+        return rows;
+    }
+
+    private static List<String> rows(List<ExpandableGroup> groups, ExpandableListDiffer.Result result) {
+        List<String> rows = new ArrayList<>();
+        for (int i = 0; i < result.newSnapshot.size(); i++) {
+            long packedPosition = result.newSnapshot.getPackedPosition(i);
+            String title = groups.get(ExpandableListPosition.getPackedPositionGroup(packedPosition)).getTitle();
+            int childIndex = ExpandableListPosition.getPackedPositionChild(packedPosition);
+            rows.add(childIndex < 0 ? title : title + "/" + childIndex);
+        }
+        return rows;
+    }
+
+    /**
+     * @return 把差异结果的插入/删除应用到旧列表之后的行数
+     */
+    private static int applyCount(int oldSize, ExpandableListDiffer.Result result) {
+        final int[] size = {oldSize};
+        result.diffResult.dispatchUpdatesTo(new ListUpdateCallback() {
+            @Override
+            public void onInserted(int position, int count) {
+                size[0] += count;
+            }
+
+            @Override
+            public void onRemoved(int position, int count) {
+                size[0] -= count;
+            }
+
+            @Override
+            public void onMoved(int fromPosition, int toPosition) {
+            }
+
+            @Override
+            public void onChanged(int position, int count, Object payload) {
+            }
+        });
+        return size[0];
+    }
+}
@@ -0,0 +1,98 @@
+package com.thoughtbot.expandablerecyclerview;
+
+import android.view.ViewGroup;
+
+import androidx.recyclerview.widget.RecyclerView;
+
+import com.thoughtbot.expandablerecyclerview.models.ExpandableTree;
+import com.thoughtbot.expandablerecyclerview.models.TreeNode;
+import com.thoughtbot.expandablerecyclerview.viewholders.GroupViewHolder;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+@RunWith(RobolectricTestRunner.class)
+public class ExpandableTreeRecyclerViewAdapterTest {
+
+    private final TreeNode<String> leaf = new TreeNode<>("leaf");
+    private final TreeNode<String> inner = new TreeNode<>("inner", Collections.singletonList(leaf));
+    private final TreeNode<String> top = new TreeNode<>("top",
+            Arrays.asList(inner, new TreeNode<String>("sibling")));
+    private final TreeNode<String> last = new TreeNode<>("last");
+    private final ExpandableTree<String> tree = new ExpandableTree<>(Arrays.asList(top, last));
+    private final List<String> events = new ArrayList<>();
+    private final ExpandableTreeRecyclerViewAdapter<String, GroupViewHolder> adapter =
+            new ExpandableTreeRecyclerViewAdapter<String, GroupViewHolder>(tree) {
+                @Override
+                public GroupViewHolder onCreateNodeViewHolder(ViewGroup parent, int viewType) {
+                    return null;
+                }
+
+                @Override
+                public void onBindNodeViewHolder(GroupViewHolder holder, int flatPosition, TreeNode<String> node) {
+                }
+            };
+
+    {
+        adapter.registerAdapterDataObserver(new RecyclerView.AdapterDataObserver() {
+            @Override
+            public void onItemRangeChanged(int positionStart, int itemCount, Object payload) {
+                events.add("changed " + positionStart + " " + itemCount);
+            }
+
+            @Override
+            public void onItemRangeInserted(int positionStart, int itemCount) {
+                events.add("inserted " + positionStart + " " + itemCount);
+            }
+
+            @Override
+            public void onItemRangeRemoved(int positionStart, int itemCount) {
+                events.add("removed " + positionStart + " " + itemCount);
+            }
+        });
+    }
+
+    @Test
+    public void clickExpandsAndCollapsesSubtree() {
+        assertTrue(adapter.onGroupClick(0));
+        assertTrue(adapter.onGroupClick(1));
+        assertEquals(5, adapter.getItemCount());
+        assertEquals(Arrays.asList("changed 0 1", "inserted 1 2", "changed 1 1", "inserted 2 1"), events);
+
+        events.clear();
+        assertFalse(adapter.onGroupClick(0));
+        assertEquals(2, adapter.getItemCount());
+        // inner 的子树随 top 一起隐藏
+        assertEquals(Arrays.asList("changed 0 1", "removed 1 3"), events);
+    }
+
+    @Test
+    public void clickOnLeafDoesNothing() {
+        adapter.onGroupClick(0);
+        events.clear();
+
+        assertFalse(adapter.onGroupClick(2));
+        assertTrue(events.isEmpty());
+    }
+
+    @Test
+    public void expandingHiddenNodeOnlyUpdatesState() {
+        adapter.setNodeExpanded(inner, true);
+
+        assertTrue(inner.isExpanded());
+        assertTrue(events.isEmpty());
+        assertEquals(2, adapter.getItemCount());
+        adapter.toggleNode(top);
+        assertEquals(Arrays.asList("changed 0 1", "inserted 1 3"), events);
+    }
+}
@@ -0,0 +1,71 @@
+package com.thoughtbot.expandablerecyclerview;
+
+import com.thoughtbot.expandablerecyclerview.models.ChildDataSource;
+import com.thoughtbot.expandablerecyclerview.models.LazyExpandableGroup;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.shadows.ShadowLooper;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+@RunWith(RobolectricTestRunner.class)
+public class LazyExpandableGroupLoadTest {
+
+    private final List<ChildDataSource.Callback<TestItem>> requests = new ArrayList<>();
+    private final LazyExpandableGroup<TestItem> lazy = new LazyExpandableGroup<>("lazy", 2,
+            new ChildDataSource<TestItem>() {
+                @Override
+                public void loadChildren(LazyExpandableGroup<TestItem> group, Callback<TestItem> callback) {
+                    requests.add(callback);
+                }
+            });
+    private final TestAdapter adapter = new TestAdapter(Collections.singletonList(lazy));
+
+    @Test
+    public void failedLoadCanBeRetried() {
+        adapter.toggleGroup(lazy);
+        assertEquals(1, requests.size());
+        assertTrue(lazy.isLoading());
+
+        requests.get(0).onLoadFailed(new IOException("offline"));
+        ShadowLooper.idleMainLooper();
+        assertFalse(lazy.isLoading());
+        assertTrue(lazy.isLoadFailed());
+        assertEquals(Collections.singletonList(lazy), adapter.failedGroups);
+
+        adapter.retryLoadChildren(lazy);
+        assertEquals(2, requests.size());
+        requests.get(1).onChildrenLoaded(TestItem.list("c1", "c2", "c3"));
+        ShadowLooper.idleMainLooper();
+        assertTrue(lazy.isLoaded());
+        assertFalse(lazy.isLoadFailed());
+        assertEquals(4, adapter.getItemCount());
+    }
+
+    @Test
+    public void resultOfCancelledLoadIsIgnored() {
+        adapter.toggleGroup(lazy);
+        // 第一次加载没有回调，重新加载
+        adapter.retryLoadChildren(lazy);
+        assertEquals(2, requests.size());
+
+        requests.get(0).onChildrenLoaded(TestItem.list("stale"));
+        ShadowLooper.idleMainLooper();
+        assertFalse(lazy.isLoaded());
+        assertTrue(lazy.isLoading());
+
+        requests.get(1).onChildrenLoaded(TestItem.list("c1"));
+        ShadowLooper.idleMainLooper();
+        assertTrue(lazy.isLoaded());
+        assertEquals(2, adapter.getItemCount());
+    }
+}
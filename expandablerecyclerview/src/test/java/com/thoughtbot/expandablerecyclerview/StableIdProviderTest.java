@@ -0,0 +1,60 @@
+package com.thoughtbot.expandablerecyclerview;
+
+import androidx.recyclerview.widget.RecyclerView;
+
+import com.thoughtbot.expandablerecyclerview.models.ExpandableGroup;
+import com.thoughtbot.expandablerecyclerview.models.StableIdProvider;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+@RunWith(RobolectricTestRunner.class)
+public class StableIdProviderTest {
+
+    private static final StableIdProvider PROVIDER = new StableIdProvider() {
+        @Override
+        public int getGroupId(ExpandableGroup group) {
+            return group.getTitle().equals("a") ? 7 : Integer.MAX_VALUE;
+        }
+
+        @Override
+        public int getChildId(ExpandableGroup group, int childIndex) {
+            return childIndex == 0 ? Integer.MAX_VALUE : childIndex;
+        }
+    };
+
+    @Test
+    public void setProviderOnFreshAdapter() {
+        List<ExpandableGroup> groups = Arrays.<ExpandableGroup>asList(
+                new ExpandableGroup<>("a", TestItem.list("a1", "a2")),
+                new ExpandableGroup<>("b", TestItem.list("b1", "b2")));
+        TestAdapter adapter = new TestAdapter(groups);
+
+        adapter.setStableIdProvider(PROVIDER);
+        assertTrue(adapter.hasStableIds());
+        adapter.expandAll();
+
+        Set<Long> ids = new HashSet<>();
+        for (int i = 0; i < adapter.getItemCount(); i++) {
+            long id = adapter.getItemId(i);
+            assertTrue(id != RecyclerView.NO_ID);
+            ids.add(id);
+        }
+        assertEquals(adapter.getItemCount(), ids.size());
+        assertEquals(Integer.valueOf(7), adapter.getGroupKey(groups.get(0)));
+
+        adapter.setStableIdProvider(null);
+        assertFalse(adapter.hasStableIds());
+        assertEquals(RecyclerView.NO_ID, adapter.getItemId(0));
+    }
+}
@@ -0,0 +1,47 @@
+package com.thoughtbot.expandablerecyclerview;
+
+import android.view.ViewGroup;
+
+import com.thoughtbot.expandablerecyclerview.models.ExpandableGroup;
+import com.thoughtbot.expandablerecyclerview.models.LazyExpandableGroup;
+import com.thoughtbot.expandablerecyclerview.viewholders.ChildViewHolder;
+import com.thoughtbot.expandablerecyclerview.viewholders.GroupViewHolder;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 不创建视图的适配器，只记录加载失败的回调
+ */
+class TestAdapter extends ExpandableRecyclerViewAdapter<GroupViewHolder, ChildViewHolder> {
+
+    final List<LazyExpandableGroup> failedGroups = new ArrayList<>();
+
+    TestAdapter(List<? extends ExpandableGroup> groups) {
+        super(groups);
+    }
+
+    @Override
+    public GroupViewHolder onCreateGroupViewHolder(ViewGroup parent, int viewType) {
+        return null;
+    }
+
+    @Override
+    public ChildViewHolder onCreateChildViewHolder(ViewGroup parent, int viewType) {
+        return null;
+    }
+
+    @Override
+    public void onBindChildViewHolder(ChildViewHolder holder, int flatPosition, ExpandableGroup group,
+                                      int childIndex) {
+    }
+
+    @Override
+    public void onBindGroupViewHolder(GroupViewHolder holder, int flatPosition, ExpandableGroup group) {
+    }
+
+    @Override
+    protected void onChildrenLoadFailed(LazyExpandableGroup group, Throwable error) {
+        failedGroups.add(group);
+    }
+}
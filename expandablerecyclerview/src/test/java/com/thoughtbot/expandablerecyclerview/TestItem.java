@@ -0,0 +1,51 @@
+package com.thoughtbot.expandablerecyclerview;
+
+import android.os.Parcel;
+import android.os.Parcelable;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 测试用的子项，按名称比较
+ */
+class TestItem implements Parcelable {
+    private final String name;
+
+    TestItem(String name) {
+        this.name = name;
+    }
+
+    static List<TestItem> list(String... names) {
+        List<TestItem> items = new ArrayList<>();
+        for (String name : names) {
+            items.add(new TestItem(name));
+        }
+        return items;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        return o instanceof TestItem && ((TestItem) o).name.equals(name);
+    }
+
+    @Override
+    public int hashCode() {
+        return name.hashCode();
+    }
+
+    @Override
+    public String toString() {
+        return name;
+    }
+
+    @Override
+    public int describeContents() {
+        return 0;
+    }
+
+    @Override
+    public void writeToParcel(Parcel dest, int flags) {
+        dest.writeString(name);
+    }
+}